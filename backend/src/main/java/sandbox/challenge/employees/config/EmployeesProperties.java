@@ -0,0 +1,75 @@
+package sandbox.challenge.employees.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@ConfigurationProperties("employees")
+public record EmployeesProperties(@DefaultValue Page page, @DefaultValue Subtree subtree,
+                                  @DefaultValue QueryBudgetSettings queryBudget, @DefaultValue WriteBehind writeBehind,
+                                  @DefaultValue ChangeFeed changeFeed, @DefaultValue Store store) {
+
+    public record Page(@DefaultValue("50") int defaultSize, @DefaultValue("500") int maxSize) {
+
+        public int resolveSize(Integer requestedSize) {
+            if (requestedSize == null || requestedSize <= 0) {
+                return defaultSize;
+            }
+            return Math.min(requestedSize, maxSize);
+        }
+    }
+
+    public record Subtree(@DefaultValue("100") int maxDepth) {
+
+        public int resolveDepth(Integer requestedDepth) {
+            if (requestedDepth == null || requestedDepth < 0) {
+                return maxDepth;
+            }
+            return Math.min(requestedDepth, maxDepth);
+        }
+    }
+
+    public record QueryBudgetSettings(@DefaultValue("20") int defaultLimit, @DefaultValue("log") Enforcement enforcement) {
+
+        public enum Enforcement {
+            LOG,
+            FAIL
+        }
+    }
+
+    /**
+     * Deferred PATCH writes: at most {@code capacity} employees wait to be written, {@code batchSize} per transaction.
+     * A PATCH that finds the queue full waits up to {@code offerTimeout} before it is refused. An update that could not
+     * be written {@code maxAttempts} times is dropped. A read that waits for queued updates gives up after
+     * {@code readTimeout}.
+     */
+    public record WriteBehind(@DefaultValue("false") boolean enabled, @DefaultValue("10000") int capacity,
+                              @DefaultValue("50") int batchSize, @DefaultValue("100ms") Duration flushInterval,
+                              @DefaultValue("2s") Duration offerTimeout, @DefaultValue("3") int maxAttempts,
+                              @DefaultValue("1s") Duration readTimeout) {
+    }
+
+    /**
+     * The last {@code retained} changes are kept for clients resuming the event stream. A client more than
+     * {@code backlog} changes behind is sent a reset instead. A stream is closed after {@code streamTimeout}, and
+     * the client reconnects with {@code Last-Event-ID}.
+     */
+    public record ChangeFeed(@DefaultValue("10000") int retained, @DefaultValue("1000") int backlog,
+                             @DefaultValue("30m") Duration streamTimeout) {
+    }
+
+    /**
+     * Where employees are kept: {@code jpa} in the database, {@code columnar} in primitive arrays on the heap, made
+     * durable by the write-ahead log at {@code walPath}, which is forced to disk on every commit if {@code syncOnCommit}.
+     */
+    public record Store(@DefaultValue("jpa") Type type, @DefaultValue("employees.wal") Path walPath,
+                        @DefaultValue("true") boolean syncOnCommit) {
+
+        public enum Type {
+            JPA,
+            COLUMNAR
+        }
+    }
+}
@@ -2,21 +2,69 @@ package sandbox.challenge.employees.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import sandbox.challenge.employees.service.EmployeeDeserializer;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 import sandbox.challenge.employees.domain.Employee;
+import sandbox.challenge.employees.domain.EmployeeView;
+import sandbox.challenge.employees.service.EmployeeDeserializer;
+import sandbox.challenge.employees.service.EmployeeSerializer;
+import sandbox.challenge.employees.service.EmployeeViewSerializer;
+
+import java.util.List;
 
+/**
+ * Employees are read and written by hand-written streaming (de)serializers. Every other type goes through
+ * Jackson's bean handling, where Blackbird replaces reflective getter, setter and constructor calls with
+ * generated lambdas. The same customizations are applied to the JSON, Smile and CBOR mappers alike, whatever
+ * builder {@code objectMapper} is given.
+ */
 @Configuration
-public class JacksonConfig {
+public class JacksonConfig implements WebMvcConfigurer {
+
+    private final ObjectProvider<ObjectMapper> objectMapper;
+    private final ObjectProvider<EmployeeDeserializer> employeeDeserializer;
+
+    public JacksonConfig(ObjectProvider<ObjectMapper> objectMapper,
+                         ObjectProvider<EmployeeDeserializer> employeeDeserializer) {
+        this.objectMapper = objectMapper;
+        this.employeeDeserializer = employeeDeserializer;
+    }
 
     @Bean
-    public ObjectMapper objectMapper(EmployeeDeserializer employeeDeserializer) {
-        var mapper = new ObjectMapper();
+    public ObjectMapper objectMapper(Jackson2ObjectMapperBuilder builder, EmployeeDeserializer employeeDeserializer) {
+        return customize(builder.build(), employeeDeserializer);
+    }
+
+    public static ObjectMapper customize(ObjectMapper mapper, EmployeeDeserializer employeeDeserializer) {
         var module = new SimpleModule();
         module.addDeserializer(Employee.class, employeeDeserializer);
+        module.addSerializer(Employee.class, new EmployeeSerializer());
+        module.addSerializer(EmployeeView.class, new EmployeeViewSerializer());
         mapper.registerModule(module);
+        mapper.registerModule(new BlackbirdModule());
         return mapper;
     }
-}
 
+    /**
+     * {@code @EnableWebMvc} sets up its own Jackson converters, one per format on the classpath (JSON, Smile, CBOR),
+     * and would serialize responses with plain mappers of its own. JSON is handed the application's mapper; the
+     * binary formats keep their own mappers and get the same customizations.
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        for (var converter : converters) {
+            if (converter instanceof MappingJackson2HttpMessageConverter json) {
+                json.setObjectMapper(objectMapper.getObject());
+            } else if (converter instanceof AbstractJackson2HttpMessageConverter binary) {
+                customize(binary.getObjectMapper(), employeeDeserializer.getObject());
+            }
+        }
+    }
+}
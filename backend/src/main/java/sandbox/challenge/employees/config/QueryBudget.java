@@ -0,0 +1,20 @@
+package sandbox.challenge.employees.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Maximum number of SQL statements a handler may issue per request. Handlers without it get
+ * {@code employees.query-budget.default-limit}; what happens on overrun is set by
+ * {@code employees.query-budget.enforcement}.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QueryBudget {
+
+    int value();
+}
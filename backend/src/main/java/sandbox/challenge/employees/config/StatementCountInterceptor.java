@@ -0,0 +1,97 @@
+package sandbox.challenge.employees.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static sandbox.challenge.employees.config.EmployeesProperties.QueryBudgetSettings.Enforcement.FAIL;
+
+/**
+ * Counts the SQL statements each request issues and holds it to the handler's {@link QueryBudget}.
+ * The count is recorded as the {@value #METRIC} summary, tagged with the HTTP method and the matched URI
+ * pattern, and left in the {@value #STATEMENTS_ATTRIBUTE} request attribute. Requests over budget are logged,
+ * or refused mid-flight when enforcement is {@code fail}.
+ * <p>
+ * A handler that goes async, like the SSE stream or the export, leaves the servlet thread before
+ * {@link #afterCompletion} runs. Its window is closed when the thread is released, and what it counted is carried
+ * into the async dispatch that completes the request, which gets what is left of the budget.
+ */
+@Component
+public class StatementCountInterceptor implements AsyncHandlerInterceptor {
+
+    public static final String METRIC = "employees.http.statements";
+    public static final String STATEMENTS_ATTRIBUTE = StatementCountInterceptor.class.getName() + ".statements";
+
+    private static final Logger log = LoggerFactory.getLogger(StatementCountInterceptor.class);
+    private static final String BUDGET_ATTRIBUTE = StatementCountInterceptor.class.getName() + ".budget";
+    private static final String BEFORE_ASYNC_ATTRIBUTE = StatementCountInterceptor.class.getName() + ".beforeAsync";
+
+    private final StatementCounter statementCounter;
+    private final MeterRegistry registry;
+    private final EmployeesProperties.QueryBudgetSettings settings;
+
+    public StatementCountInterceptor(StatementCounter statementCounter, MeterRegistry registry,
+                                     EmployeesProperties properties) {
+        this.statementCounter = statementCounter;
+        this.registry = registry;
+        this.settings = properties.queryBudget();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        var budget = budgetOf(handler);
+        request.setAttribute(BUDGET_ATTRIBUTE, budget);
+        statementCounter.start(budget - statementsBeforeAsync(request), settings.enforcement() == FAIL);
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        request.setAttribute(BEFORE_ASYNC_ATTRIBUTE, statementsBeforeAsync(request) + statementCounter.stop());
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        var statements = statementsBeforeAsync(request) + statementCounter.stop();
+        request.setAttribute(STATEMENTS_ATTRIBUTE, statements);
+        var uri = uriOf(request);
+        DistributionSummary.builder(METRIC)
+                .description("SQL statements issued while handling one request")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(statements);
+
+        var budget = (Integer) request.getAttribute(BUDGET_ATTRIBUTE);
+        if (budget != null && statements > budget) {
+            log.warn("{} {} issued {} SQL statements, over its budget of {}", request.getMethod(), uri, statements, budget);
+        }
+    }
+
+    private static int statementsBeforeAsync(HttpServletRequest request) {
+        var statements = (Integer) request.getAttribute(BEFORE_ASYNC_ATTRIBUTE);
+        return statements != null ? statements : 0;
+    }
+
+    private int budgetOf(Object handler) {
+        if (handler instanceof HandlerMethod method && method.hasMethodAnnotation(QueryBudget.class)) {
+            return method.getMethodAnnotation(QueryBudget.class).value();
+        }
+        return settings.defaultLimit();
+    }
+
+    private static String uriOf(HttpServletRequest request) {
+        var pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : "UNKNOWN";
+    }
+}
@@ -0,0 +1,55 @@
+package sandbox.challenge.employees.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+import sandbox.challenge.employees.exception.QueryBudgetExceededException;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread between {@link #start} and
+ * {@link #stop()}. Registered as the session factory's statement inspector; statements outside a counting
+ * window, e.g. from async export threads, are passed through untouched.
+ * <p>
+ * When started with {@code failOverBudget}, the statement that would exceed the budget is refused with
+ * {@link QueryBudgetExceededException}, so an N+1 loop is cut off instead of running to completion.
+ */
+@Component
+public class StatementCounter implements StatementInspector {
+
+    private final ThreadLocal<Window> window = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        var current = window.get();
+        if (current != null && ++current.count > current.budget && current.failOverBudget) {
+            throw new QueryBudgetExceededException(
+                    "Request exceeded its budget of " + current.budget + " SQL statements");
+        }
+        return sql;
+    }
+
+    public void start(int budget, boolean failOverBudget) {
+        window.set(new Window(budget, failOverBudget));
+    }
+
+    public int current() {
+        var current = window.get();
+        return current == null ? 0 : current.count;
+    }
+
+    public int stop() {
+        var statements = current();
+        window.remove();
+        return statements;
+    }
+
+    private static final class Window {
+        private final int budget;
+        private final boolean failOverBudget;
+        private int count;
+
+        private Window(int budget, boolean failOverBudget) {
+            this.budget = budget;
+            this.failOverBudget = failOverBudget;
+        }
+    }
+}
@@ -1,40 +1,208 @@
 package sandbox.challenge.employees.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import sandbox.challenge.employees.config.EmployeesProperties;
+import sandbox.challenge.employees.config.QueryBudget;
+import sandbox.challenge.employees.domain.BulkEmployeeRequest;
+import sandbox.challenge.employees.domain.BulkEmployeeResult;
+import sandbox.challenge.employees.domain.CursorPage;
 import sandbox.challenge.employees.domain.Employee;
+import sandbox.challenge.employees.domain.EmployeeChange;
+import sandbox.challenge.employees.domain.EmployeeChanges;
+import sandbox.challenge.employees.domain.EmployeeFilter;
+import sandbox.challenge.employees.domain.EmployeePatch;
+import sandbox.challenge.employees.domain.EmployeeView;
+import sandbox.challenge.employees.domain.SubtreeNode;
+import sandbox.challenge.employees.exception.InvalidQueryException;
+import sandbox.challenge.employees.exception.PreconditionFailedException;
+import sandbox.challenge.employees.service.EmployeeChangeFeed;
 import sandbox.challenge.employees.service.EmployeeService;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
-import java.util.Map;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+import static org.springframework.http.HttpHeaders.ACCEPT;
+import static org.springframework.http.HttpHeaders.IF_MATCH;
+import static org.springframework.http.HttpStatus.NOT_MODIFIED;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
+import static org.springframework.http.MediaType.TEXT_EVENT_STREAM_VALUE;
 
 @RestController
 @RequestMapping("/api/employees")
 public class EmployeeController {
 
+    private static final String LAST_EVENT_ID = "Last-Event-ID";
+
     private final EmployeeService employeeService;
+    private final EmployeesProperties properties;
+    private final ObjectMapper objectMapper;
 
-    public EmployeeController(EmployeeService employeeService) {
+    public EmployeeController(EmployeeService employeeService, EmployeesProperties properties, ObjectMapper objectMapper) {
         this.employeeService = employeeService;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
-    public ResponseEntity<Employee> create(@RequestBody Employee employee) {
-        return ResponseEntity.ok(employeeService.create(employee));
+    @QueryBudget(5)
+    public ResponseEntity<EmployeeView> create(@RequestBody Employee employee) {
+        return ResponseEntity.ok(EmployeeView.from(employeeService.create(employee)));
+    }
+
+    @PostMapping("/bulk")
+    public ResponseEntity<List<BulkEmployeeResult>> createAll(@RequestBody List<BulkEmployeeRequest> rows) {
+        return ResponseEntity.ok(employeeService.createAll(rows));
+    }
+
+    @GetMapping(params = {"!after", "!size"})
+    @QueryBudget(3)
+    public ResponseEntity<List<EmployeeView>> getAll(EmployeeFilter filter, Sort sort, WebRequest request) {
+        return conditionally(request, employeeService.getTableVersion(), () -> employeeService.getAll(filter, sort));
     }
 
     @GetMapping
-    public ResponseEntity<List<Employee>> getAll() {
-        return ResponseEntity.ok(employeeService.getAll());
+    @QueryBudget(4)
+    public ResponseEntity<CursorPage<EmployeeView>> getPage(@RequestParam(required = false) Long after,
+                                                            @RequestParam(required = false) Integer size,
+                                                            @RequestParam(defaultValue = "false") boolean withTotal,
+                                                            EmployeeFilter filter, Sort sort, WebRequest request) {
+        if (sort.isSorted()) {
+            throw new InvalidQueryException("Pages are ordered by id; sort is only supported without after/size");
+        }
+        var pageSize = properties.page().resolveSize(size);
+        return conditionally(request, employeeService.getTableVersion(),
+                () -> employeeService.getPage(after, pageSize, withTotal, filter));
+    }
+
+    @GetMapping(value = "/export", produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> export() {
+        StreamingResponseBody body = out -> {
+            try (var generator = objectMapper.createGenerator(out).setRootValueSeparator(null)) {
+                employeeService.exportAll(employee -> {
+                    try {
+                        generator.writeObject(employee);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * Server-Sent Events stream of committed changes: one {@code upsert} or {@code delete} event per change, with its
+     * position in the feed as event id. A reconnecting {@code EventSource} resumes through {@code Last-Event-ID};
+     * {@code since} does the same for other clients. A stream opens with a {@code reset} event, and gets another one
+     * when the changes it missed are no longer retained: reload the list, then apply the events that follow.
+     */
+    @GetMapping(value = "/events", produces = TEXT_EVENT_STREAM_VALUE)
+    @QueryBudget(0)
+    public SseEmitter events(@RequestParam(required = false) String since,
+                             @RequestHeader(value = LAST_EVENT_ID, required = false) String lastEventId) {
+        var emitter = new SseEmitter(properties.changeFeed().streamTimeout().toMillis());
+        var subscriber = new EmployeeChangeFeed.Subscriber() {
+            @Override
+            public boolean onChange(String position, EmployeeChange change) {
+                return send(emitter, SseEmitter.event().id(position)
+                        .name(change.type().name().toLowerCase(Locale.ROOT)).data(change, APPLICATION_JSON));
+            }
+
+            @Override
+            public boolean onReset(String position) {
+                return send(emitter, SseEmitter.event().id(position).name("reset").data(position));
+            }
+        };
+        emitter.onCompletion(() -> employeeService.unsubscribeFromChanges(subscriber));
+        emitter.onTimeout(emitter::complete);
+        employeeService.subscribeToChanges(lastEventId != null ? lastEventId : since, subscriber);
+        return emitter;
+    }
+
+    private static boolean send(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // the client went away or the stream timed out; the container completes the emitter
+            return false;
+        }
+    }
+
+    /**
+     * Delta sync: the upserts and deletions after cursor {@code since}, oldest first. Start from {@code 0}, then
+     * pass the returned {@code cursor} each time; keep going while {@code hasMore} is set.
+     */
+    @GetMapping("/changes")
+    @QueryBudget(2)
+    public ResponseEntity<EmployeeChanges> getChanges(@RequestParam(defaultValue = "0") long since,
+                                                      @RequestParam(required = false) Integer size) {
+        var pageSize = properties.page().resolveSize(size);
+        return ResponseEntity.ok(employeeService.getChanges(since, pageSize));
+    }
+
+    /**
+     * Served from the in-memory search index; the one statement allowed is the index reloading itself after a
+     * rolled back write dropped it.
+     */
+    @GetMapping("/search")
+    @QueryBudget(1)
+    public ResponseEntity<CursorPage<EmployeeView>> search(@RequestParam String q,
+                                                           @RequestParam(defaultValue = "0") int offset,
+                                                           @RequestParam(required = false) Integer size) {
+        var pageSize = properties.page().resolveSize(size);
+        return ResponseEntity.ok(employeeService.search(q, Math.max(offset, 0), pageSize));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Employee> getById(@PathVariable Long id) {
+    @QueryBudget(2)
+    public ResponseEntity<EmployeeView> getById(@PathVariable Long id, WebRequest request) {
         var employee = employeeService.getById(id);
-        return employee.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+        return employee
+                .map(found -> conditionally(request, etagOf(found), () -> EmployeeView.from(found)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/{id}/subordinates")
+    @QueryBudget(3)
+    public ResponseEntity<List<EmployeeView>> getSubordinates(@PathVariable Long id, WebRequest request) {
+        employeeService.awaitQueuedWrites();
+        var tableVersion = employeeService.getTableVersion();
+        if (employeeService.getById(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return conditionally(request, tableVersion, () -> employeeService.getSubordinates(id));
+    }
+
+    @GetMapping("/{id}/subtree")
+    @QueryBudget(2)
+    public ResponseEntity<List<SubtreeNode>> getSubtree(@PathVariable Long id,
+                                                        @RequestParam(required = false) Integer depth,
+                                                        WebRequest request) {
+        var maxDepth = properties.subtree().resolveDepth(depth);
+        return conditionally(request, employeeService.getTableVersion(), () -> employeeService.getSubtree(id, maxDepth));
+    }
+
+    @GetMapping("/{id}/chain")
+    @QueryBudget(3)
+    public ResponseEntity<List<EmployeeView>> getChain(@PathVariable Long id, WebRequest request) {
+        return conditionally(request, employeeService.getTableVersion(), () -> employeeService.getChain(id));
     }
 
     @DeleteMapping("/{id}")
+    @QueryBudget(4)
     public ResponseEntity<Void> delete(@PathVariable Long id) {
         if (employeeService.getById(id).isPresent()) {
             employeeService.delete(id);
@@ -45,15 +213,60 @@ public class EmployeeController {
     }
 
     @PatchMapping("/{id}")
-    public ResponseEntity<Employee> update(@PathVariable Long id, @RequestBody Map<String, String> employeeFieldsMap) {
-        var employee = employeeService.update(id, employeeFieldsMap);
-        return employee.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+    @QueryBudget(6)
+    public ResponseEntity<EmployeeView> update(@PathVariable Long id,
+                                               @RequestBody EmployeePatch patch,
+                                               @RequestHeader(value = IF_MATCH, required = false) String ifMatch) {
+        var expectedVersion = versionOf(ifMatch);
+        if (employeeService.canUpdateLater(patch, expectedVersion)) {
+            // acknowledged before it is written, so there is no version to hand out as an ETag yet
+            return employeeService.updateLater(id, patch)
+                    .map(accepted -> ResponseEntity.accepted().body(accepted))
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        }
+        var employee = employeeService.update(id, patch, expectedVersion);
+        return employee
+                .map(updated -> ResponseEntity.ok().eTag(etagOf(updated)).body(EmployeeView.from(updated)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Applies several merge patches, each naming its employee with {@code id}, in one transaction.
+     */
+    @PatchMapping
+    public ResponseEntity<List<EmployeeView>> updateAll(@RequestBody List<EmployeePatch> patches) {
+        return ResponseEntity.ok(employeeService.updateAll(patches));
     }
 
     @PostMapping("/{supervisorId}/add-subordinates")
-    public ResponseEntity<Employee> addSubordinates(@PathVariable Long supervisorId, @RequestBody List<Long> subordinateIds) {
-        return ResponseEntity.ok(employeeService.addSubordinates(supervisorId, subordinateIds));
+    public ResponseEntity<EmployeeView> addSubordinates(@PathVariable Long supervisorId, @RequestBody List<Long> subordinateIds) {
+        return ResponseEntity.ok(EmployeeView.from(employeeService.addSubordinates(supervisorId, subordinateIds)));
     }
 
-}
+    /**
+     * Answers {@code If-None-Match} before {@code body} is computed, so a matching poll costs neither a query
+     * nor serialization. The tag is the same for every encoding, so caches are told to keep them apart by {@code Accept}.
+     */
+    private static <T> ResponseEntity<T> conditionally(WebRequest request, String etag, Supplier<T> body) {
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(NOT_MODIFIED).eTag(etag).varyBy(ACCEPT).build();
+        }
+        return ResponseEntity.ok().eTag(etag).varyBy(ACCEPT).body(body.get());
+    }
+
+    private static String etagOf(Employee employee) {
+        return String.valueOf(employee.getVersion());
+    }
 
+    private static Long versionOf(String ifMatch) {
+        if (ifMatch == null || ifMatch.equals("*")) {
+            return null;
+        }
+        try {
+            // If-Match uses strong comparison, so a weak tag (W/"...") can never match and fails to parse here
+            return Long.parseLong(ifMatch.replace("\"", ""));
+        } catch (NumberFormatException e) {
+            throw new PreconditionFailedException("If-Match does not hold an employee version");
+        }
+    }
+}
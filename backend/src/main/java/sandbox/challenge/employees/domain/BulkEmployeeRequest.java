@@ -0,0 +1,15 @@
+package sandbox.challenge.employees.domain;
+
+/**
+ * One row of a bulk create. {@code key} is a client-side identifier that other rows of the same payload
+ * can use as their {@code supervisorKey}; {@code supervisorId} points at an employee that already exists.
+ */
+public record BulkEmployeeRequest(
+        String key,
+        String firstName,
+        String lastName,
+        String position,
+        Long supervisorId,
+        String supervisorKey
+) {
+}
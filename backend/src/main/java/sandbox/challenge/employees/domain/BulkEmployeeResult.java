@@ -0,0 +1,17 @@
+package sandbox.challenge.employees.domain;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import static com.fasterxml.jackson.annotation.JsonInclude.Include.NON_NULL;
+
+@JsonInclude(NON_NULL)
+public record BulkEmployeeResult(String key, Long id, String error) {
+
+    public static BulkEmployeeResult created(String key, Long id) {
+        return new BulkEmployeeResult(key, id, null);
+    }
+
+    public static BulkEmployeeResult failed(String key, String error) {
+        return new BulkEmployeeResult(key, null, error);
+    }
+}
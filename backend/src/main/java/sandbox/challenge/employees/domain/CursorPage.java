@@ -0,0 +1,15 @@
+package sandbox.challenge.employees.domain;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+import static com.fasterxml.jackson.annotation.JsonInclude.Include.NON_NULL;
+
+/**
+ * One keyset page of results. {@code nextCursor} is the id to pass as {@code after} to fetch the following page
+ * and is {@code null} on the last page. {@code totalCount} is only filled in when explicitly requested.
+ */
+@JsonInclude(NON_NULL)
+public record CursorPage<T>(List<T> content, Long nextCursor, Long totalCount) {
+}
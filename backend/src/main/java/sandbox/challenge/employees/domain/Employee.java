@@ -1,21 +1,48 @@
 package sandbox.challenge.employees.domain;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
+import org.hibernate.annotations.Cache;
+import sandbox.challenge.employees.service.EmployeeChangeListener;
 import sandbox.challenge.employees.service.EmployeeDeserializer;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
 
 import static com.fasterxml.jackson.annotation.JsonFormat.*;
-import static jakarta.persistence.GenerationType.IDENTITY;
+import static jakarta.persistence.FetchType.LAZY;
+import static jakarta.persistence.GenerationType.SEQUENCE;
+import static org.hibernate.annotations.CacheConcurrencyStrategy.READ_WRITE;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_employee_path", columnList = "path"),
+        @Index(name = "idx_employee_supervisor", columnList = "supervisor_id"),
+        @Index(name = "idx_employee_position", columnList = "position"),
+        @Index(name = "idx_employee_name", columnList = "last_name, first_name"),
+        @Index(name = "idx_employee_first_name", columnList = "first_name"),
+        @Index(name = "idx_employee_creation_date", columnList = "creation_date"),
+        @Index(name = "idx_employee_change_sequence", columnList = "change_sequence")
+})
+@Cacheable
+@Cache(usage = READ_WRITE, region = Employee.CACHE_REGION)
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @JsonDeserialize(using = EmployeeDeserializer.class)
+@EntityListeners(EmployeeChangeListener.class)
 public class Employee {
+
+    public static final String CACHE_REGION = "employees";
+    public static final String BY_SUPERVISOR_CACHE_REGION = "employeesBySupervisor";
+    public static final String ROOT_PATH = "/";
+
     @Id
-    @GeneratedValue(strategy = IDENTITY)
+    @GeneratedValue(strategy = SEQUENCE, generator = "employee_seq")
+    @SequenceGenerator(name = "employee_seq", sequenceName = "employee_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "First name is required")
@@ -25,13 +52,29 @@ public class Employee {
     @NotBlank(message = "Position is required")
     private String position;
 
-    @ManyToOne
+    @ManyToOne(fetch = LAZY)
     @JoinColumn(name = "supervisor_id")
     private Employee supervisor;
 
+    /**
+     * Ids of everyone above this employee, top first, e.g. {@code /1/4/} for someone reporting to 4 who reports to 1.
+     * Set on insert from the supervisor; moves are rewritten by {@code EmployeeService} together with the subtree.
+     */
+    @Column(nullable = false, length = 2048)
+    private String path = ROOT_PATH;
+
     @JsonFormat(shape = Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
     private LocalDateTime creationDate;
 
+    @Version
+    private Long version;
+
+    /**
+     * Cursor position of the last write to this row, see {@code EmployeeChangeSequence}.
+     */
+    @JsonIgnore
+    private Long changeSequence;
+
     public Long getId() {
         return id;
     }
@@ -79,4 +122,59 @@ public class Employee {
     public void setCreationDate(LocalDateTime creationDate) {
         this.creationDate = creationDate;
     }
-}
\ No newline at end of file
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Long getChangeSequence() {
+        return changeSequence;
+    }
+
+    public void setChangeSequence(Long changeSequence) {
+        this.changeSequence = changeSequence;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    /**
+     * The path every direct subordinate of this employee carries; every descendant's path starts with it.
+     */
+    public String subordinatePath() {
+        return path + id + "/";
+    }
+
+    public boolean reportsTo(Long ancestorId) {
+        return path.contains("/" + ancestorId + "/");
+    }
+
+    /**
+     * Number of managers above this employee.
+     */
+    public int depth() {
+        return (int) path.chars().filter(c -> c == '/').count() - 1;
+    }
+
+    public List<Long> ancestorIds() {
+        return Arrays.stream(path.split("/")).filter(part -> !part.isEmpty()).map(Long::valueOf).toList();
+    }
+
+    public static String pathBelow(Employee supervisor) {
+        return supervisor == null ? ROOT_PATH : supervisor.subordinatePath();
+    }
+
+    @PrePersist
+    void initPath() {
+        path = pathBelow(supervisor);
+    }
+}
@@ -0,0 +1,36 @@
+package sandbox.challenge.employees.domain;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDateTime;
+
+import static com.fasterxml.jackson.annotation.JsonInclude.Include.NON_NULL;
+
+/**
+ * One committed change to an employee. {@code employee} holds the new state of an upsert and is absent for a delete.
+ * On the live feed {@code sequence} grows by one with every change the service publishes; in a delta sync it is
+ * the change sequence stored with the row, which only ever grows but may skip numbers.
+ */
+@JsonInclude(NON_NULL)
+public record EmployeeChange(long sequence, Type type, Long id, EmployeeView employee) {
+
+    public enum Type {
+        UPSERT,
+        DELETE
+    }
+
+    /**
+     * Upsert read straight from a query projection.
+     */
+    public EmployeeChange(long sequence, Long id, String firstName, String lastName, String position,
+                          Long supervisorId, LocalDateTime creationDate) {
+        this(sequence, Type.UPSERT, id, new EmployeeView(id, firstName, lastName, position, supervisorId, creationDate));
+    }
+
+    /**
+     * Deletion read straight from a tombstone.
+     */
+    public EmployeeChange(long sequence, Long id) {
+        this(sequence, Type.DELETE, id, null);
+    }
+}
@@ -0,0 +1,11 @@
+package sandbox.challenge.employees.domain;
+
+import java.util.List;
+
+/**
+ * One page of a delta sync: the upserts and deletions after the requested cursor, in sequence order, with each
+ * employee at most once in its latest state. {@code cursor} is what to pass as {@code since} next time, also
+ * when {@code hasMore} is {@code false}.
+ */
+public record EmployeeChanges(List<EmployeeChange> changes, long cursor, boolean hasMore) {
+}
@@ -0,0 +1,24 @@
+package sandbox.challenge.employees.domain;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+import static org.springframework.format.annotation.DateTimeFormat.ISO.DATE_TIME;
+
+/**
+ * Optional list filters bound from query parameters. {@code name} is a case-sensitive prefix of the first or
+ * last name; the creation-date bounds are inclusive.
+ */
+public record EmployeeFilter(String position,
+                             String name,
+                             Long supervisorId,
+                             @DateTimeFormat(iso = DATE_TIME) LocalDateTime createdFrom,
+                             @DateTimeFormat(iso = DATE_TIME) LocalDateTime createdTo) {
+
+    public static final EmployeeFilter NONE = new EmployeeFilter(null, null, null, null, null);
+
+    public boolean isEmpty() {
+        return equals(NONE);
+    }
+}
@@ -0,0 +1,49 @@
+package sandbox.challenge.employees.domain;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import sandbox.challenge.employees.service.EmployeePatchDeserializer;
+
+/**
+ * Partial update of an employee, read from a JSON Merge Patch body: only the fields present in the body
+ * are changed, and {@code null} clears a field. {@code fields} holds one bit per present field, so an absent
+ * field and an explicit {@code null} stay distinguishable. {@code id} is only used by batched patches.
+ */
+@JsonDeserialize(using = EmployeePatchDeserializer.class)
+public record EmployeePatch(Long id, String firstName, String lastName, String position, Long supervisorId, int fields) {
+
+    public static final int FIRST_NAME = 1;
+    public static final int LAST_NAME = 1 << 1;
+    public static final int POSITION = 1 << 2;
+    public static final int SUPERVISOR_ID = 1 << 3;
+
+    public boolean has(int field) {
+        return (fields & field) != 0;
+    }
+
+    /**
+     * Returns the patch equivalent to applying this one and then {@code newer}.
+     */
+    public EmployeePatch mergedWith(EmployeePatch newer) {
+        return new EmployeePatch(id,
+                newer.has(FIRST_NAME) ? newer.firstName : firstName,
+                newer.has(LAST_NAME) ? newer.lastName : lastName,
+                newer.has(POSITION) ? newer.position : position,
+                newer.has(SUPERVISOR_ID) ? newer.supervisorId : supervisorId,
+                fields | newer.fields);
+    }
+
+    /**
+     * Sets the names and position present in this patch. The supervisor has to be looked up and is left to the caller.
+     */
+    public void applyFieldsTo(Employee employee) {
+        if (has(FIRST_NAME)) {
+            employee.setFirstName(firstName);
+        }
+        if (has(LAST_NAME)) {
+            employee.setLastName(lastName);
+        }
+        if (has(POSITION)) {
+            employee.setPosition(position);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package sandbox.challenge.employees.domain;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * Left behind by a deleted employee so that delta syncs learn about the deletion. Employee ids are never reused,
+ * so the id doubles as the key. Tombstones are only ever inserted, which saves Spring Data the lookup it would
+ * otherwise do to tell an insert from an update.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_employee_tombstone_change_sequence", columnList = "change_sequence"))
+public class EmployeeTombstone implements Persistable<Long> {
+
+    @Id
+    private Long id;
+
+    private long changeSequence;
+
+    protected EmployeeTombstone() {
+    }
+
+    public EmployeeTombstone(Long id, long changeSequence) {
+        this.id = id;
+        this.changeSequence = changeSequence;
+    }
+
+    @Override
+    public Long getId() {
+        return id;
+    }
+
+    public long getChangeSequence() {
+        return changeSequence;
+    }
+
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
@@ -0,0 +1,34 @@
+package sandbox.challenge.employees.domain;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDateTime;
+
+import static com.fasterxml.jackson.annotation.JsonFormat.Shape;
+
+/**
+ * Flat, fixed-size representation of an employee: the supervisor is referenced by id only,
+ * so writing it never walks (or lazily loads) the management chain.
+ */
+public record EmployeeView(
+        Long id,
+        String firstName,
+        String lastName,
+        String position,
+        Long supervisorId,
+        @JsonFormat(shape = Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+        LocalDateTime creationDate
+) {
+
+    public static EmployeeView from(Employee employee) {
+        var supervisor = employee.getSupervisor();
+        return new EmployeeView(
+                employee.getId(),
+                employee.getFirstName(),
+                employee.getLastName(),
+                employee.getPosition(),
+                supervisor != null ? supervisor.getId() : null,
+                employee.getCreationDate()
+        );
+    }
+}
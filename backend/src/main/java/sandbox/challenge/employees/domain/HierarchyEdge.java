@@ -0,0 +1,4 @@
+package sandbox.challenge.employees.domain;
+
+public record HierarchyEdge(Long id, Long supervisorId) {
+}
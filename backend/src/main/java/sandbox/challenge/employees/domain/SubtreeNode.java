@@ -0,0 +1,23 @@
+package sandbox.challenge.employees.domain;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDateTime;
+
+import static com.fasterxml.jackson.annotation.JsonFormat.Shape;
+
+/**
+ * One entry of an org-chart subtree in adjacency-list form: {@code supervisorId} links the node to its parent
+ * and {@code depth} is the distance from the requested root (which has depth {@code 0}).
+ */
+public record SubtreeNode(
+        Long id,
+        String firstName,
+        String lastName,
+        String position,
+        Long supervisorId,
+        @JsonFormat(shape = Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+        LocalDateTime creationDate,
+        int depth
+) {
+}
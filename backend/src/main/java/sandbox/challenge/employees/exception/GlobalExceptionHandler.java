@@ -1,6 +1,8 @@
 package sandbox.challenge.employees.exception;
 
 import jakarta.validation.ConstraintViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -10,7 +12,11 @@ import java.util.HashMap;
 import java.util.Map;
 
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.CONFLICT;
+import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.HttpStatus.PRECONDITION_FAILED;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
 
 @ControllerAdvice
 public class GlobalExceptionHandler {
@@ -52,6 +58,36 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorResponse, BAD_REQUEST);
     }
 
+    @ExceptionHandler(InvalidQueryException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidQueryException(InvalidQueryException ex) {
+        var errorResponse = new ErrorResponse("Invalid query", ex.getMessage());
+        return new ResponseEntity<>(errorResponse, BAD_REQUEST);
+    }
+
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<ErrorResponse> handlePreconditionFailedException(PreconditionFailedException ex) {
+        var errorResponse = new ErrorResponse("Precondition failed", ex.getMessage());
+        return new ResponseEntity<>(errorResponse, PRECONDITION_FAILED);
+    }
+
+    @ExceptionHandler(QueryBudgetExceededException.class)
+    public ResponseEntity<ErrorResponse> handleQueryBudgetExceededException(QueryBudgetExceededException ex) {
+        var errorResponse = new ErrorResponse("Query budget exceeded", ex.getMessage());
+        return new ResponseEntity<>(errorResponse, INTERNAL_SERVER_ERROR);
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponse> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex) {
+        var errorResponse = new ErrorResponse("Conflict", "Employee was modified concurrently. Reload and try again.");
+        return new ResponseEntity<>(errorResponse, CONFLICT);
+    }
+
+    @ExceptionHandler({UpdatesNotAcceptedException.class, UpdatesPendingException.class})
+    public ResponseEntity<ErrorResponse> handleUpdatesNotAcceptedException(RuntimeException ex) {
+        var errorResponse = new ErrorResponse("Service unavailable", ex.getMessage());
+        return ResponseEntity.status(SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").body(errorResponse);
+    }
+
     private ResponseEntity<Map<String, Object>> createErrorResponse(Map<String, String> errors) {
         var response = new HashMap<String, Object>();
         response.put("error", "Validation error");
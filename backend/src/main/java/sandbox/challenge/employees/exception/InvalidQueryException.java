@@ -0,0 +1,7 @@
+package sandbox.challenge.employees.exception;
+
+public class InvalidQueryException extends RuntimeException {
+    public InvalidQueryException(String message) {
+        super(message);
+    }
+}
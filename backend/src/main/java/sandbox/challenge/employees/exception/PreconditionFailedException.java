@@ -0,0 +1,7 @@
+package sandbox.challenge.employees.exception;
+
+public class PreconditionFailedException extends RuntimeException {
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package sandbox.challenge.employees.exception;
+
+public class QueryBudgetExceededException extends RuntimeException {
+    public QueryBudgetExceededException(String message) {
+        super(message);
+    }
+}
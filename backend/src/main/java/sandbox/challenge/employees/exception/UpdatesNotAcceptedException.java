@@ -0,0 +1,7 @@
+package sandbox.challenge.employees.exception;
+
+public class UpdatesNotAcceptedException extends RuntimeException {
+    public UpdatesNotAcceptedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package sandbox.challenge.employees.exception;
+
+public class UpdatesPendingException extends RuntimeException {
+    public UpdatesPendingException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,921 @@
+package sandbox.challenge.employees.repository;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import sandbox.challenge.employees.config.EmployeesProperties;
+import sandbox.challenge.employees.domain.Employee;
+import sandbox.challenge.employees.domain.EmployeeChange;
+import sandbox.challenge.employees.domain.EmployeeFilter;
+import sandbox.challenge.employees.domain.EmployeeView;
+import sandbox.challenge.employees.domain.HierarchyEdge;
+import sandbox.challenge.employees.domain.SubtreeNode;
+import sandbox.challenge.employees.repository.EmployeeWriteAheadLog.Row;
+import sandbox.challenge.employees.service.EmployeeChangeSequence;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
+
+import static java.time.ZoneOffset.UTC;
+import static sandbox.challenge.employees.repository.EmployeeRepository.STREAM_FETCH_SIZE;
+
+/**
+ * Keeps every employee in arrays indexed by id instead of one entity per row: supervisor links and the child lists
+ * below them are {@code int} slots, positions are codes into a dictionary that holds each distinct position once,
+ * and the creation date, version and change sequence are {@code long}s. Apart from the name strings that is about
+ * 80 bytes per employee, against roughly 250 for an entity with its boxed fields, date and path, so millions of
+ * employees fit in a fraction of the heap. Paths are not stored; they are rebuilt from the supervisor links when an
+ * {@link Employee} is read. Ids are slots too, so only ids below {@link Integer#MAX_VALUE} can be stored; a larger
+ * one is refused with an {@link IllegalArgumentException}.
+ * <p>
+ * Every committed write is appended to the {@link EmployeeWriteAheadLog}, which is replayed on startup and
+ * compacted when it holds more than twice the records needed. Writing transactions take turns: the first write
+ * in a transaction waits until no other transaction holds the store, and it is released when the transaction ends;
+ * on rollback the rows it wrote are put back. Readers do not wait for that, so they may see a write before its
+ * transaction has committed.
+ */
+@Component
+@ConditionalOnProperty(name = "employees.store.type", havingValue = "columnar")
+public class ColumnarEmployeeStore implements EmployeeStore {
+
+    private static final int NONE = 0;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    private final EmployeeChangeSequence changeSequence;
+    private final EmployeeWriteAheadLog writeAheadLog;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock writer = new ReentrantLock();
+
+    private final BitSet present = new BitSet();
+    private int[] supervisors = new int[INITIAL_CAPACITY];
+    private int[] firstChildren = new int[INITIAL_CAPACITY];
+    private int[] nextSiblings = new int[INITIAL_CAPACITY];
+    private int[] previousSiblings = new int[INITIAL_CAPACITY];
+    private String[] firstNames = new String[INITIAL_CAPACITY];
+    private String[] lastNames = new String[INITIAL_CAPACITY];
+    private int[] positions = new int[INITIAL_CAPACITY];
+    private long[] creationDates = new long[INITIAL_CAPACITY];
+    private long[] versions = new long[INITIAL_CAPACITY];
+    private long[] changeSequences = new long[INITIAL_CAPACITY];
+    private final Dictionary positionNames = new Dictionary();
+    private final ChangeLog upserts = new ChangeLog();
+    private final ChangeLog deletions = new ChangeLog();
+    private int size;
+    private int lastId;
+
+    @Autowired
+    public ColumnarEmployeeStore(EmployeeChangeSequence changeSequence, EmployeesProperties properties) {
+        this(changeSequence, properties.store().walPath(), properties.store().syncOnCommit());
+    }
+
+    public ColumnarEmployeeStore(EmployeeChangeSequence changeSequence, Path walPath, boolean syncOnCommit) {
+        this.changeSequence = changeSequence;
+        this.writeAheadLog = new EmployeeWriteAheadLog(walPath, syncOnCommit);
+        try {
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not replay " + walPath, e);
+        }
+    }
+
+    private void recover() throws IOException {
+        var maxSequence = new long[1];
+        var records = writeAheadLog.replay(new EmployeeWriteAheadLog.Replay() {
+            @Override
+            public void upserted(Row row) {
+                apply(row);
+                maxSequence[0] = Math.max(maxSequence[0], row.changeSequence());
+            }
+
+            @Override
+            public void deleted(int id, long sequence) {
+                if (present.get(id)) {
+                    remove(id);
+                }
+                lastId = Math.max(lastId, id);
+                deletions.append(sequence, id);
+                maxSequence[0] = Math.max(maxSequence[0], sequence);
+            }
+        });
+        // records were appended in commit order, which is not always change sequence order
+        for (var id = present.nextSetBit(0); id >= 0; id = present.nextSetBit(id + 1)) {
+            upserts.append(changeSequences[id], id);
+        }
+        upserts.sort();
+        deletions.sort();
+        changeSequence.advanceTo(maxSequence[0]);
+        if (records > 2L * (size + deletions.size)) {
+            compactWriteAheadLog();
+        }
+    }
+
+    private void compactWriteAheadLog() throws IOException {
+        writeAheadLog.rewrite(batch -> {
+            for (var id = present.nextSetBit(0); id >= 0; id = present.nextSetBit(id + 1)) {
+                batch.upsert(row(id));
+            }
+            for (var i = 0; i < deletions.size; i++) {
+                batch.delete(deletions.ids[i], deletions.sequences[i]);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        writeAheadLog.close();
+    }
+
+    @Override
+    public Employee save(Employee employee) {
+        write(transaction -> {
+            var id = employee.getId() == null ? lastId + 1 : slot(employee.getId());
+            var supervisorId = employee.getSupervisor() == null ? NONE : slot(employee.getSupervisor().getId());
+            if (supervisorId != NONE && !present.get(supervisorId)) {
+                throw new DataIntegrityViolationException("Supervisor " + supervisorId + " does not exist");
+            }
+            var exists = present.get(id);
+            if (exists ? !Objects.equals(employee.getVersion(), versions[id]) : employee.getVersion() != null) {
+                throw new ObjectOptimisticLockingFailureException(Employee.class, employee.getId());
+            }
+
+            transaction.before(id, exists ? row(id) : null);
+            var row = new Row(id, supervisorId, employee.getFirstName(), employee.getLastName(), employee.getPosition(),
+                    micros(employee.getCreationDate()), exists ? versions[id] + 1 : 0, changeSequence.next());
+            apply(row);
+            upserts.append(row.changeSequence(), id);
+            transaction.redo.upsert(row);
+
+            employee.setId((long) id);
+            employee.setVersion(row.version());
+            employee.setChangeSequence(row.changeSequence());
+            employee.setPath(path(id));
+        });
+        return employee;
+    }
+
+    @Override
+    public List<Employee> saveAll(List<Employee> employees) {
+        employees.forEach(this::save);
+        return employees;
+    }
+
+    @Override
+    public Optional<Employee> findById(Long id) {
+        return read(() -> present.get(slotOf(id)) ? Optional.of(employee(slotOf(id))) : Optional.empty());
+    }
+
+    @Override
+    public List<Employee> findAllById(Collection<Long> ids) {
+        return read(() -> ids.stream().map(ColumnarEmployeeStore::slotOf).filter(present::get).distinct()
+                .map(this::employee).toList());
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return read(() -> present.get(slotOf(id)));
+    }
+
+    @Override
+    public Employee getReferenceById(Long id) {
+        var reference = new Employee();
+        reference.setId(id);
+        return reference;
+    }
+
+    @Override
+    public void delete(Long employeeId) {
+        write(transaction -> {
+            var id = slotOf(employeeId);
+            if (!present.get(id)) {
+                return;
+            }
+            if (firstChildren[id] != NONE) {
+                throw new DataIntegrityViolationException("Employee " + id + " still has subordinates");
+            }
+            transaction.before(id, row(id));
+            remove(id);
+            var sequence = changeSequence.next();
+            deletions.append(sequence, id);
+            transaction.redo.delete(id, sequence);
+        });
+    }
+
+    @Override
+    public List<EmployeeView> findAllViews() {
+        return findViewsAfter(EmployeeFilter.NONE, null, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<EmployeeView> findViews(EmployeeFilter filter, Sort sort) {
+        var views = new ArrayList<>(findViewsAfter(filter, null, Integer.MAX_VALUE));
+        views.sort(comparator(sort));
+        return views;
+    }
+
+    @Override
+    public List<EmployeeView> findViewsAfter(EmployeeFilter filter, Long after, int limit) {
+        var from = after == null || after < 0 ? 0 : (int) Math.min(after, Integer.MAX_VALUE - 1);
+        return read(() -> {
+            var matches = matcher(filter);
+            var views = new ArrayList<EmployeeView>();
+            if (filter.supervisorId() != null) {
+                for (var id : subordinatesOf(slotOf(filter.supervisorId()))) {
+                    if (views.size() < limit && id > from && matches.test(id)) {
+                        views.add(view(id));
+                    }
+                }
+                return views;
+            }
+            for (var id = present.nextSetBit(from + 1); id >= 0 && views.size() < limit; id = present.nextSetBit(id + 1)) {
+                if (matches.test(id)) {
+                    views.add(view(id));
+                }
+            }
+            return views;
+        });
+    }
+
+    @Override
+    public long count(EmployeeFilter filter) {
+        return read(() -> {
+            if (filter.isEmpty()) {
+                return (long) size;
+            }
+            var matches = matcher(filter);
+            if (filter.supervisorId() != null) {
+                return subordinatesOf(slotOf(filter.supervisorId())).stream().filter(matches::test).count();
+            }
+            long count = 0;
+            for (var id = present.nextSetBit(0); id >= 0; id = present.nextSetBit(id + 1)) {
+                if (matches.test(id)) {
+                    count++;
+                }
+            }
+            return count;
+        });
+    }
+
+    /**
+     * Copies {@value EmployeeRepository#STREAM_FETCH_SIZE} rows at a time, so writers are not held up while
+     * {@code sink} writes them out.
+     */
+    @Override
+    public void exportAll(Consumer<EmployeeView> sink) {
+        Long after = null;
+        for (var chunk = findViewsAfter(EmployeeFilter.NONE, after, STREAM_FETCH_SIZE); !chunk.isEmpty();
+             chunk = findViewsAfter(EmployeeFilter.NONE, after, STREAM_FETCH_SIZE)) {
+            chunk.forEach(sink);
+            after = chunk.get(chunk.size() - 1).id();
+        }
+    }
+
+    @Override
+    public List<EmployeeView> findBySupervisorId(Long supervisorId) {
+        return read(() -> subordinatesOf(slotOf(supervisorId)).stream().map(this::view).toList());
+    }
+
+    /**
+     * Walks the child lists one level at a time, each level in id order.
+     */
+    @Override
+    public List<SubtreeNode> findSubtree(Long rootId, int depth) {
+        return read(() -> {
+            var root = slotOf(rootId);
+            var nodes = new ArrayList<SubtreeNode>();
+            if (!present.get(root)) {
+                return nodes;
+            }
+            var level = List.of(root);
+            for (var distance = 0; !level.isEmpty(); distance++) {
+                var next = new ArrayList<Integer>();
+                for (var id : level) {
+                    var view = view(id);
+                    nodes.add(new SubtreeNode(view.id(), view.firstName(), view.lastName(), view.position(),
+                            view.supervisorId(), view.creationDate(), distance));
+                    if (distance < depth) {
+                        next.addAll(subordinatesOf(id));
+                    }
+                }
+                next.sort(null);
+                level = next;
+            }
+            return nodes;
+        });
+    }
+
+    @Override
+    public List<EmployeeView> findViewsByIdIn(Collection<Long> ids) {
+        return read(() -> ids.stream().map(ColumnarEmployeeStore::slotOf).filter(present::get).distinct()
+                .map(this::view).toList());
+    }
+
+    @Override
+    public List<Long> findExistingIds(Collection<Long> ids) {
+        return read(() -> ids.stream().filter(id -> present.get(slotOf(id))).distinct().toList());
+    }
+
+    @Override
+    public List<HierarchyEdge> findHierarchyEdges() {
+        return read(() -> {
+            var edges = new ArrayList<HierarchyEdge>(size);
+            for (var id = present.nextSetBit(0); id >= 0; id = present.nextSetBit(id + 1)) {
+                edges.add(new HierarchyEdge((long) id, supervisors[id] == NONE ? null : (long) supervisors[id]));
+            }
+            return edges;
+        });
+    }
+
+    @Override
+    public void reassign(Employee supervisor, List<Employee> subordinates) {
+        write(transaction -> {
+            var supervisorId = slot(supervisor.getId());
+            // one sequence per row, so a delta sync page can end between any two of them
+            var ids = subordinates.stream().mapToInt(subordinate -> slotOf(subordinate.getId())).sorted().distinct()
+                    .toArray();
+            var sequence = changeSequence.next(ids.length) - 1;
+            for (var id : ids) {
+                sequence++;
+                if (!present.get(id)) {
+                    continue;
+                }
+                var previous = row(id);
+                transaction.before(id, previous);
+                var row = new Row(id, supervisorId, previous.firstName(), previous.lastName(), previous.position(),
+                        previous.creationDate(), previous.version() + 1, sequence);
+                apply(row);
+                upserts.append(sequence, id);
+                transaction.redo.upsert(row);
+            }
+        });
+    }
+
+    /**
+     * Nothing to do: paths follow from the supervisor links.
+     */
+    @Override
+    public void movePaths(String oldPrefix, String newPrefix) {
+    }
+
+    @Override
+    public List<EmployeeChange> findUpsertsBetween(long after, long upTo, int limit) {
+        return read(() -> {
+            var changes = new ArrayList<EmployeeChange>();
+            for (var i = upserts.firstAfter(after); i < upserts.size && changes.size() < limit; i++) {
+                var sequence = upserts.sequences[i];
+                if (sequence > upTo) {
+                    break;
+                }
+                var id = upserts.ids[i];
+                // an entry is superseded once its row is written again or deleted
+                if (isLive(upserts, i)) {
+                    var view = view(id);
+                    changes.add(new EmployeeChange(sequence, view.id(), view.firstName(), view.lastName(),
+                            view.position(), view.supervisorId(), view.creationDate()));
+                }
+            }
+            return changes;
+        });
+    }
+
+    @Override
+    public List<EmployeeChange> findDeletionsBetween(long after, long upTo, int limit) {
+        return read(() -> {
+            var changes = new ArrayList<EmployeeChange>();
+            for (var i = deletions.firstAfter(after); i < deletions.size && changes.size() < limit; i++) {
+                if (deletions.sequences[i] > upTo) {
+                    break;
+                }
+                changes.add(new EmployeeChange(deletions.sequences[i], (long) deletions.ids[i]));
+            }
+            return changes;
+        });
+    }
+
+    private <T> T read(Supplier<T> query) {
+        lock.readLock().lock();
+        try {
+            return query.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Runs {@code change} inside the caller's {@link Transaction}, or in one of its own that commits right away.
+     */
+    private void write(Consumer<Transaction> change) {
+        var transaction = join();
+        var succeeded = false;
+        try {
+            lock.writeLock().lock();
+            try {
+                change.accept(transaction);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            succeeded = true;
+        } finally {
+            if (!transaction.registered) {
+                transaction.complete(succeeded);
+            }
+        }
+    }
+
+    private Transaction join() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            writer.lock();
+            return new Transaction(false);
+        }
+        for (var synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof Transaction transaction && transaction.store() == this) {
+                return transaction;
+            }
+        }
+        writer.lock();
+        var transaction = new Transaction(true);
+        TransactionSynchronizationManager.registerSynchronization(transaction);
+        return transaction;
+    }
+
+    private boolean isLive(ChangeLog log, int entry) {
+        var id = log.ids[entry];
+        return present.get(id) && changeSequences[id] == log.sequences[entry];
+    }
+
+    private void apply(Row row) {
+        var id = row.id();
+        ensureCapacity(Math.max(id, row.supervisorId()));
+        if (!present.get(id)) {
+            present.set(id);
+            size++;
+        }
+        link(id, row.supervisorId());
+        firstNames[id] = row.firstName();
+        lastNames[id] = row.lastName();
+        positions[id] = positionNames.encode(row.position());
+        creationDates[id] = row.creationDate();
+        versions[id] = row.version();
+        changeSequences[id] = row.changeSequence();
+        lastId = Math.max(lastId, id);
+    }
+
+    private void remove(int id) {
+        link(id, NONE);
+        present.clear(id);
+        size--;
+        firstNames[id] = null;
+        lastNames[id] = null;
+        positions[id] = NONE;
+    }
+
+    /**
+     * Moves {@code id} from its current supervisor's child list to the front of {@code supervisorId}'s.
+     */
+    private void link(int id, int supervisorId) {
+        var previous = supervisors[id];
+        if (previous == supervisorId) {
+            return;
+        }
+        if (previous != NONE) {
+            if (previousSiblings[id] != NONE) {
+                nextSiblings[previousSiblings[id]] = nextSiblings[id];
+            } else {
+                firstChildren[previous] = nextSiblings[id];
+            }
+            if (nextSiblings[id] != NONE) {
+                previousSiblings[nextSiblings[id]] = previousSiblings[id];
+            }
+        }
+        supervisors[id] = supervisorId;
+        previousSiblings[id] = NONE;
+        nextSiblings[id] = NONE;
+        if (supervisorId != NONE) {
+            nextSiblings[id] = firstChildren[supervisorId];
+            if (firstChildren[supervisorId] != NONE) {
+                previousSiblings[firstChildren[supervisorId]] = id;
+            }
+            firstChildren[supervisorId] = id;
+        }
+    }
+
+    private List<Integer> subordinatesOf(int supervisorId) {
+        var ids = new ArrayList<Integer>();
+        if (supervisorId == NONE || supervisorId >= firstChildren.length) {
+            return ids;
+        }
+        for (var id = firstChildren[supervisorId]; id != NONE; id = nextSiblings[id]) {
+            ids.add(id);
+        }
+        ids.sort(null);
+        return ids;
+    }
+
+    private void ensureCapacity(int slot) {
+        if (slot < supervisors.length) {
+            return;
+        }
+        var capacity = Math.max(supervisors.length * 2, slot + 1);
+        supervisors = Arrays.copyOf(supervisors, capacity);
+        firstChildren = Arrays.copyOf(firstChildren, capacity);
+        nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+        previousSiblings = Arrays.copyOf(previousSiblings, capacity);
+        firstNames = Arrays.copyOf(firstNames, capacity);
+        lastNames = Arrays.copyOf(lastNames, capacity);
+        positions = Arrays.copyOf(positions, capacity);
+        creationDates = Arrays.copyOf(creationDates, capacity);
+        versions = Arrays.copyOf(versions, capacity);
+        changeSequences = Arrays.copyOf(changeSequences, capacity);
+    }
+
+    private Row row(int id) {
+        return new Row(id, supervisors[id], firstNames[id], lastNames[id], positionNames.value(positions[id]),
+                creationDates[id], versions[id], changeSequences[id]);
+    }
+
+    private EmployeeView view(int id) {
+        return new EmployeeView((long) id, firstNames[id], lastNames[id], positionNames.value(positions[id]),
+                supervisors[id] == NONE ? null : (long) supervisors[id], dateTime(creationDates[id]));
+    }
+
+    /**
+     * A detached employee whose supervisor is loaded one level deep, enough for cycle checks and paths.
+     */
+    private Employee employee(int id) {
+        var employee = detached(id);
+        var supervisorId = supervisors[id];
+        if (supervisorId != NONE) {
+            var supervisor = detached(supervisorId);
+            if (supervisors[supervisorId] != NONE) {
+                supervisor.setSupervisor(getReferenceById((long) supervisors[supervisorId]));
+            }
+            employee.setSupervisor(supervisor);
+        }
+        return employee;
+    }
+
+    private Employee detached(int id) {
+        var employee = new Employee();
+        employee.setId((long) id);
+        employee.setFirstName(firstNames[id]);
+        employee.setLastName(lastNames[id]);
+        employee.setPosition(positionNames.value(positions[id]));
+        employee.setCreationDate(dateTime(creationDates[id]));
+        employee.setVersion(versions[id]);
+        employee.setChangeSequence(changeSequences[id]);
+        employee.setPath(path(id));
+        return employee;
+    }
+
+    private String path(int id) {
+        var ancestors = new ArrayList<Integer>();
+        // a consistent tree never has more hops than nodes; the bound only guards against corrupted data
+        for (var current = supervisors[id]; current != NONE && ancestors.size() <= size; current = supervisors[current]) {
+            ancestors.add(current);
+        }
+        var path = new StringBuilder(Employee.ROOT_PATH);
+        for (var i = ancestors.size() - 1; i >= 0; i--) {
+            path.append(ancestors.get(i)).append('/');
+        }
+        return path.toString();
+    }
+
+    private IntPredicate matcher(EmployeeFilter filter) {
+        IntPredicate matches = id -> true;
+        if (filter.position() != null) {
+            var code = positionNames.find(filter.position());
+            matches = matches.and(id -> positions[id] == code);
+        }
+        if (filter.name() != null) {
+            var prefix = filter.name();
+            matches = matches.and(id -> startsWith(lastNames[id], prefix)
+                    || startsWith(firstNames[id], prefix));
+        }
+        if (filter.createdFrom() != null) {
+            var from = micros(filter.createdFrom());
+            matches = matches.and(id -> creationDates[id] != NO_DATE && creationDates[id] >= from);
+        }
+        if (filter.createdTo() != null) {
+            var to = micros(filter.createdTo());
+            matches = matches.and(id -> creationDates[id] != NO_DATE && creationDates[id] <= to);
+        }
+        return matches;
+    }
+
+    private static boolean startsWith(String value, String prefix) {
+        return value != null && value.startsWith(prefix);
+    }
+
+    /**
+     * The order a database would give {@code sort}: {@code null} sorts below every value.
+     */
+    private static Comparator<EmployeeView> comparator(Sort sort) {
+        Comparator<EmployeeView> comparator = (left, right) -> 0;
+        for (var order : sort) {
+            Comparator<EmployeeView> property = Comparator.comparing(key(order.getProperty()),
+                    Comparator.nullsFirst(Comparator.naturalOrder()));
+            comparator = comparator.thenComparing(order.isAscending() ? property : property.reversed());
+        }
+        return comparator;
+    }
+
+    private static Function<EmployeeView, Comparable<Object>> key(String property) {
+        Function<EmployeeView, ?> key = switch (property) {
+            case "id" -> EmployeeView::id;
+            case "firstName" -> EmployeeView::firstName;
+            case "lastName" -> EmployeeView::lastName;
+            case "position" -> EmployeeView::position;
+            case "creationDate" -> EmployeeView::creationDate;
+            default -> throw new IllegalArgumentException("Cannot sort by " + property);
+        };
+        @SuppressWarnings("unchecked")
+        var comparable = (Function<EmployeeView, Comparable<Object>>) key;
+        return comparable;
+    }
+
+    private static long micros(LocalDateTime dateTime) {
+        if (dateTime == null) {
+            return NO_DATE;
+        }
+        return dateTime.toEpochSecond(UTC) * 1_000_000 + dateTime.getNano() / 1_000;
+    }
+
+    private static LocalDateTime dateTime(long micros) {
+        if (micros == NO_DATE) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000), (int) Math.floorMod(micros, 1_000_000) * 1_000, UTC);
+    }
+
+    /**
+     * {@code 0}, which is never a valid slot, for ids the store cannot hold.
+     */
+    private static int slotOf(Long id) {
+        return id == null || id <= 0 || id >= Integer.MAX_VALUE ? NONE : (int) (long) id;
+    }
+
+    private static int slot(Long id) {
+        var slot = slotOf(id);
+        if (slot == NONE) {
+            throw new IllegalArgumentException("Employee id out of storable range: " + id);
+        }
+        return slot;
+    }
+
+    /**
+     * What one transaction wrote: the rows as they were before, to put back on rollback, and the records to
+     * append to the log on commit. The transaction holds {@code writer} from its first write until it ends.
+     * <p>
+     * The records are appended once the surrounding transaction has committed, so a commit that fails leaves
+     * nothing in the log. If the append fails, the rows are put back as well and the caller gets the error.
+     */
+    private final class Transaction implements TransactionSynchronization {
+
+        private final boolean registered;
+        private final List<Row> undo = new ArrayList<>();
+        private final List<Integer> undoIds = new ArrayList<>();
+        private final EmployeeWriteAheadLog.Batch redo = new EmployeeWriteAheadLog.Batch();
+        private boolean logged;
+
+        private Transaction(boolean registered) {
+            this.registered = registered;
+        }
+
+        private ColumnarEmployeeStore store() {
+            return ColumnarEmployeeStore.this;
+        }
+
+        /**
+         * Remembers {@code id} as it was before this write; {@code previous} is {@code null} for an insert.
+         */
+        private void before(int id, Row previous) {
+            undoIds.add(id);
+            undo.add(previous);
+        }
+
+        @Override
+        public void afterCommit() {
+            writeAhead();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            finish(status == STATUS_COMMITTED && logged);
+        }
+
+        /**
+         * Ends a write made outside a transaction.
+         */
+        private void complete(boolean succeeded) {
+            try {
+                if (succeeded) {
+                    writeAhead();
+                }
+            } finally {
+                finish(logged);
+            }
+        }
+
+        private void finish(boolean committed) {
+            try {
+                if (!committed) {
+                    rollback();
+                }
+            } finally {
+                writer.unlock();
+            }
+        }
+
+        private void writeAhead() {
+            try {
+                writeAheadLog.append(redo);
+                logged = true;
+            } catch (IOException e) {
+                throw new DataAccessResourceFailureException("Could not append to the employee write-ahead log", e);
+            }
+        }
+
+        private void rollback() {
+            if (undo.isEmpty()) {
+                return;
+            }
+            lock.writeLock().lock();
+            try {
+                for (var i = undo.size() - 1; i >= 0; i--) {
+                    var previous = undo.get(i);
+                    if (previous != null) {
+                        apply(previous);
+                    } else if (present.get(undoIds.get(i))) {
+                        remove(undoIds.get(i));
+                    }
+                }
+                // entries of the undone writes no longer match their rows, and the entries of the restored rows
+                // may have been dropped as superseded in the meantime
+                upserts.retain(i -> isLive(upserts, i));
+                undo.stream().filter(Objects::nonNull).distinct()
+                        .forEach(previous -> upserts.append(previous.changeSequence(), previous.id()));
+                upserts.sort();
+                upserts.retain(i -> isLive(upserts, i) && (i == 0 || upserts.ids[i - 1] != upserts.ids[i]
+                        || upserts.sequences[i - 1] != upserts.sequences[i]));
+                deletions.retain(i -> !present.get(deletions.ids[i]));
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Each distinct string once; code {@code 0} stands for {@code null}.
+     */
+    private static final class Dictionary {
+
+        private final HashMap<String, Integer> codes = new HashMap<>();
+        private String[] values = new String[64];
+        private int size = 1;
+
+        private int encode(String value) {
+            if (value == null) {
+                return NONE;
+            }
+            var code = codes.get(value);
+            if (code != null) {
+                return code;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size] = value;
+            codes.put(value, size);
+            return size++;
+        }
+
+        /**
+         * The code of {@code value}, or {@code -1} if no row ever held it.
+         */
+        private int find(String value) {
+            return codes.getOrDefault(value, -1);
+        }
+
+        private String value(int code) {
+            return values[code];
+        }
+    }
+
+    /**
+     * Change sequence and id of every write, ordered by change sequence, so a delta sync can binary search for its
+     * cursor. Entries of rows that were written again since are skipped when read and dropped once they make up
+     * half the log.
+     */
+    private final class ChangeLog {
+
+        private long[] sequences = new long[INITIAL_CAPACITY];
+        private int[] ids = new int[INITIAL_CAPACITY];
+        private int size;
+
+        private void append(long sequence, int id) {
+            if (size == sequences.length) {
+                if (this == upserts && size >= 2 * ColumnarEmployeeStore.this.size) {
+                    retain(i -> isLive(this, i));
+                }
+                if (size == sequences.length) {
+                    sequences = Arrays.copyOf(sequences, size * 2);
+                    ids = Arrays.copyOf(ids, size * 2);
+                }
+            }
+            sequences[size] = sequence;
+            ids[size] = id;
+            size++;
+        }
+
+        /**
+         * Index of the first entry with a change sequence above {@code sequence}.
+         */
+        private int firstAfter(long sequence) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                var middle = (low + high) >>> 1;
+                if (sequences[middle] <= sequence) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        private void retain(IntPredicate live) {
+            var kept = 0;
+            for (var i = 0; i < size; i++) {
+                if (live.test(i)) {
+                    sequences[kept] = sequences[i];
+                    ids[kept] = ids[i];
+                    kept++;
+                }
+            }
+            size = kept;
+        }
+
+        /**
+         * Heap sort by change sequence, then id, in place: no boxed copy of millions of entries on startup.
+         */
+        private void sort() {
+            for (var i = size / 2 - 1; i >= 0; i--) {
+                siftDown(i, size);
+            }
+            for (var end = size - 1; end > 0; end--) {
+                swap(0, end);
+                siftDown(0, end);
+            }
+        }
+
+        private void siftDown(int root, int end) {
+            for (var child = 2 * root + 1; child < end; root = child, child = 2 * root + 1) {
+                if (child + 1 < end && less(child, child + 1)) {
+                    child++;
+                }
+                if (!less(root, child)) {
+                    return;
+                }
+                swap(root, child);
+            }
+        }
+
+        private boolean less(int left, int right) {
+            return sequences[left] != sequences[right] ? sequences[left] < sequences[right] : ids[left] < ids[right];
+        }
+
+        private void swap(int left, int right) {
+            var sequence = sequences[left];
+            sequences[left] = sequences[right];
+            sequences[right] = sequence;
+            var id = ids[left];
+            ids[left] = ids[right];
+            ids[right] = id;
+        }
+    }
+}
@@ -1,14 +1,122 @@
 package sandbox.challenge.employees.repository;
 
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import sandbox.challenge.employees.domain.Employee;
+import sandbox.challenge.employees.domain.EmployeeChange;
+import sandbox.challenge.employees.domain.EmployeeView;
+import sandbox.challenge.employees.domain.HierarchyEdge;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_CACHE_REGION;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
-public interface EmployeeRepository extends JpaRepository<Employee, Long> {
+public interface EmployeeRepository extends JpaRepository<Employee, Long>, JpaSpecificationExecutor<Employee> {
+
+    int STREAM_FETCH_SIZE = 500;
+
+    String SELECT_VIEW = "select new sandbox.challenge.employees.domain.EmployeeView("
+            + "e.id, e.firstName, e.lastName, e.position, e.supervisor.id, e.creationDate) from Employee e";
 
+    @QueryHints({
+            @QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = Employee.BY_SUPERVISOR_CACHE_REGION)
+    })
     List<Employee> findBySupervisorId(Long supervisorId);
+
+    @Query(SELECT_VIEW + " order by e.id")
+    List<EmployeeView> findAllViews();
+
+    @Query(SELECT_VIEW + " where e.id > :after order by e.id")
+    List<EmployeeView> findViewsAfter(Long after, Limit limit);
+
+    @Query("select new sandbox.challenge.employees.domain.HierarchyEdge(e.id, e.supervisor.id) from Employee e")
+    List<HierarchyEdge> findHierarchyEdges();
+
+    @Query(SELECT_VIEW + " where e.id in :ids")
+    List<EmployeeView> findViewsByIdIn(Collection<Long> ids);
+
+    @Query("select new sandbox.challenge.employees.domain.EmployeeChange(e.changeSequence, "
+            + "e.id, e.firstName, e.lastName, e.position, e.supervisor.id, e.creationDate) from Employee e"
+            + " where e.changeSequence > :after and e.changeSequence <= :upTo order by e.changeSequence")
+    List<EmployeeChange> findChangesBetween(long after, long upTo, Limit limit);
+
+    @Query("select e.id from Employee e where e.id in :ids")
+    List<Long> findExistingIds(Collection<Long> ids);
+
+    /**
+     * Walks the reporting tree below {@code id} with a single recursive CTE, stopping {@code depth} levels down.
+     */
+    @Query(nativeQuery = true, value = """
+            WITH RECURSIVE subtree (id, first_name, last_name, position, supervisor_id, creation_date, depth) AS (
+                SELECT e.id, e.first_name, e.last_name, e.position, e.supervisor_id, e.creation_date, 0
+                FROM employee e
+                WHERE e.id = :id
+                UNION ALL
+                SELECT e.id, e.first_name, e.last_name, e.position, e.supervisor_id, e.creation_date, s.depth + 1
+                FROM employee e
+                JOIN subtree s ON e.supervisor_id = s.id
+                WHERE s.depth < :depth
+            )
+            SELECT id, first_name AS "firstName", last_name AS "lastName", position AS "position",
+                   supervisor_id AS "supervisorId", creation_date AS "creationDate", depth AS "depth"
+            FROM subtree
+            ORDER BY depth, id
+            """)
+    List<SubtreeRow> findSubtree(Long id, int depth);
+
+    interface SubtreeRow {
+        Long getId();
+
+        String getFirstName();
+
+        String getLastName();
+
+        String getPosition();
+
+        Long getSupervisorId();
+
+        LocalDateTime getCreationDate();
+
+        Integer getDepth();
+    }
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Employee e set e.supervisor = :supervisor, e.path = :path, e.version = e.version + 1,"
+            + " e.changeSequence = :firstChangeSequence"
+            + " + (select count(o) from Employee o where o.id in :ids and o.id < e.id) where e.id in :ids")
+    int updateSupervisor(Employee supervisor, String path, Collection<Long> ids, long firstChangeSequence);
+
+    /**
+     * Re-roots every descendant path starting with {@code oldPrefix} under {@code newPrefix}; the prefix match
+     * is a range scan on the path index.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Employee e set e.path = concat(:newPrefix, substring(e.path, length(:oldPrefix) + 1))"
+            + " where e.path like concat(:oldPrefix, '%')")
+    int movePaths(String oldPrefix, String newPrefix);
+
+    /**
+     * Forward-only cursor over the whole table. Must be consumed inside a transaction and closed afterwards.
+     */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("select e from Employee e order by e.id")
+    Stream<Employee> streamAll();
 }
 
@@ -0,0 +1,68 @@
+package sandbox.challenge.employees.repository;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import sandbox.challenge.employees.domain.Employee;
+import sandbox.challenge.employees.domain.EmployeeFilter;
+import sandbox.challenge.employees.exception.InvalidQueryException;
+
+import java.util.Set;
+
+/**
+ * Criteria for the filtered list endpoints. Every predicate is an equality or a left-anchored range,
+ * so each one can be answered from an index declared on {@link Employee}.
+ */
+public final class EmployeeSpecifications {
+
+    private static final Set<String> SORTABLE = Set.of("id", "firstName", "lastName", "position", "creationDate");
+
+    private EmployeeSpecifications() {
+    }
+
+    public static Specification<Employee> matching(EmployeeFilter filter) {
+        return Specification.allOf(
+                filter.position() == null ? null : positionIs(filter.position()),
+                filter.name() == null ? null : nameStartsWith(filter.name()),
+                filter.supervisorId() == null ? null : supervisorIs(filter.supervisorId()),
+                filter.createdFrom() == null ? null
+                        : (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("creationDate"), filter.createdFrom()),
+                filter.createdTo() == null ? null
+                        : (root, query, cb) -> cb.lessThanOrEqualTo(root.get("creationDate"), filter.createdTo()));
+    }
+
+    public static Specification<Employee> idAfter(Long after) {
+        return after == null ? null : (root, query, cb) -> cb.greaterThan(root.get("id"), after);
+    }
+
+    /**
+     * Only indexed columns may be sorted on; {@code id} is appended as a tie-breaker so the order is stable.
+     */
+    public static Sort checked(Sort sort) {
+        sort.forEach(order -> {
+            if (!SORTABLE.contains(order.getProperty())) {
+                throw new InvalidQueryException("Cannot sort by " + order.getProperty()
+                        + "; sortable properties are " + String.join(", ", SORTABLE.stream().sorted().toList()));
+            }
+        });
+        return sort.getOrderFor("id") != null ? sort : sort.and(Sort.by("id"));
+    }
+
+    private static Specification<Employee> positionIs(String position) {
+        return (root, query, cb) -> cb.equal(root.get("position"), position);
+    }
+
+    private static Specification<Employee> nameStartsWith(String prefix) {
+        var pattern = escapeLike(prefix) + "%";
+        return (root, query, cb) -> cb.or(
+                cb.like(root.get("lastName"), pattern, '\\'),
+                cb.like(root.get("firstName"), pattern, '\\'));
+    }
+
+    private static Specification<Employee> supervisorIs(Long supervisorId) {
+        return (root, query, cb) -> cb.equal(root.get("supervisor").get("id"), supervisorId);
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
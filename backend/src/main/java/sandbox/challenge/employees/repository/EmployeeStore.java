@@ -0,0 +1,99 @@
+package sandbox.challenge.employees.repository;
+
+import org.springframework.data.domain.Sort;
+import sandbox.challenge.employees.domain.Employee;
+import sandbox.challenge.employees.domain.EmployeeChange;
+import sandbox.challenge.employees.domain.EmployeeFilter;
+import sandbox.challenge.employees.domain.EmployeeView;
+import sandbox.challenge.employees.domain.HierarchyEdge;
+import sandbox.challenge.employees.domain.SubtreeNode;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Storage behind {@code EmployeeService}, selected with {@code employees.store.type}: {@link JpaEmployeeStore}
+ * (the default) or {@link ColumnarEmployeeStore}. Writes join the caller's Spring transaction and are undone if
+ * it rolls back. A written employee is stamped with its new version and change sequence.
+ */
+public interface EmployeeStore {
+
+    /**
+     * Inserts {@code employee} if it has no id yet, otherwise writes it over the stored row. Fails with an
+     * {@link org.springframework.dao.OptimisticLockingFailureException} if the row changed since it was read.
+     */
+    Employee save(Employee employee);
+
+    List<Employee> saveAll(List<Employee> employees);
+
+    Optional<Employee> findById(Long id);
+
+    List<Employee> findAllById(Collection<Long> ids);
+
+    boolean existsById(Long id);
+
+    /**
+     * An employee that only carries {@code id}, enough to link a supervisor without reading its row.
+     */
+    Employee getReferenceById(Long id);
+
+    /**
+     * Deletes the employee and leaves a tombstone with the next change sequence for delta syncs.
+     */
+    void delete(Long id);
+
+    List<EmployeeView> findAllViews();
+
+    /**
+     * Employees matching {@code filter} in {@code sort} order; {@code sort} has been checked against the sortable columns.
+     */
+    List<EmployeeView> findViews(EmployeeFilter filter, Sort sort);
+
+    /**
+     * Up to {@code limit} employees matching {@code filter} with an id above {@code after}, in id order.
+     */
+    List<EmployeeView> findViewsAfter(EmployeeFilter filter, Long after, int limit);
+
+    long count(EmployeeFilter filter);
+
+    /**
+     * Feeds every employee to {@code sink} in id order without holding the whole table in memory.
+     * Must be called inside a transaction.
+     */
+    void exportAll(Consumer<EmployeeView> sink);
+
+    List<EmployeeView> findBySupervisorId(Long supervisorId);
+
+    /**
+     * {@code id} and everyone below it down to {@code depth} levels, ordered by depth; empty if {@code id} does not exist.
+     */
+    List<SubtreeNode> findSubtree(Long id, int depth);
+
+    List<EmployeeView> findViewsByIdIn(Collection<Long> ids);
+
+    List<Long> findExistingIds(Collection<Long> ids);
+
+    List<HierarchyEdge> findHierarchyEdges();
+
+    /**
+     * Puts every employee in {@code subordinates} directly below {@code supervisor}, which is known not to create a cycle.
+     */
+    void reassign(Employee supervisor, List<Employee> subordinates);
+
+    /**
+     * Called after {@link #save} moved an employee whose subordinates carried {@code oldPrefix} in their paths.
+     */
+    void movePaths(String oldPrefix, String newPrefix);
+
+    /**
+     * Upserts with a change sequence in {@code (after, upTo]}, oldest first.
+     */
+    List<EmployeeChange> findUpsertsBetween(long after, long upTo, int limit);
+
+    /**
+     * Deletions with a change sequence in {@code (after, upTo]}, oldest first.
+     */
+    List<EmployeeChange> findDeletionsBetween(long after, long upTo, int limit);
+}
@@ -0,0 +1,18 @@
+package sandbox.challenge.employees.repository;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import sandbox.challenge.employees.domain.EmployeeChange;
+import sandbox.challenge.employees.domain.EmployeeTombstone;
+
+import java.util.List;
+
+@Repository
+public interface EmployeeTombstoneRepository extends JpaRepository<EmployeeTombstone, Long> {
+
+    @Query("select new sandbox.challenge.employees.domain.EmployeeChange(t.changeSequence, t.id) from EmployeeTombstone t"
+            + " where t.changeSequence > :after and t.changeSequence <= :upTo order by t.changeSequence")
+    List<EmployeeChange> findChangesBetween(long after, long upTo, Limit limit);
+}
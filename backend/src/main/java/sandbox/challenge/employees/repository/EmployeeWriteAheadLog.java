@@ -0,0 +1,301 @@
+package sandbox.challenge.employees.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Append-only log that makes {@link ColumnarEmployeeStore} durable. Every record carries the full row (or the id
+ * of a deleted one). A transaction's records are appended once it has committed, as one frame of length, payload
+ * and CRC-32, so replay applies all of them or, if a crash tore the frame, none of them and cuts it off.
+ */
+final class EmployeeWriteAheadLog implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(EmployeeWriteAheadLog.class);
+
+    private static final byte UPSERT = 'U';
+    private static final byte DELETE = 'D';
+    // a compacted log is written in frames of this many records, so replaying it needs no buffer for the whole table
+    private static final int COMPACTED_RECORDS_PER_FRAME = 1024;
+
+    /**
+     * One employee as it is written to the log. {@code creationDate} is in microseconds since the epoch,
+     * {@code supervisorId} is {@code 0} for none.
+     */
+    record Row(int id, int supervisorId, String firstName, String lastName, String position, long creationDate,
+               long version, long changeSequence) {
+    }
+
+    interface Replay {
+
+        void upserted(Row row);
+
+        void deleted(int id, long changeSequence);
+    }
+
+    private final Path path;
+    private final boolean sync;
+    private FileChannel channel;
+
+    EmployeeWriteAheadLog(Path path, boolean sync) {
+        this.path = path;
+        this.sync = sync;
+    }
+
+    /**
+     * Feeds the records of every intact frame to {@code replay}, cuts off a torn tail and opens the log for
+     * appending. Returns the number of records read.
+     */
+    long replay(Replay replay) throws IOException {
+        var parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        long records = 0;
+        long intact = 0;
+        if (Files.exists(path)) {
+            var size = Files.size(path);
+            try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+                for (var payload = read(in, size - intact); payload != null; payload = read(in, size - intact)) {
+                    records += apply(payload, replay);
+                    intact += Integer.BYTES + payload.length + Integer.BYTES;
+                }
+            }
+        }
+        channel = FileChannel.open(path, CREATE, WRITE);
+        if (channel.size() > intact) {
+            log.warn("Cutting {} torn bytes off the end of {}", channel.size() - intact, path);
+            channel.truncate(intact);
+            channel.force(true);
+        }
+        channel.position(intact);
+        return records;
+    }
+
+    /**
+     * Appends {@code batch} as one frame and forces it to disk if so configured. A failed append is rolled off the
+     * end of the log again, so later frames do not land behind a torn one.
+     */
+    void append(Batch batch) throws IOException {
+        if (batch.records == 0) {
+            return;
+        }
+        var start = channel.position();
+        try {
+            var buffer = ByteBuffer.wrap(batch.framed());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (sync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            try {
+                channel.truncate(start);
+                channel.position(start);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Replaces the log with the records {@code contents} writes, which describe the same state in fewer records.
+     * The new log is written next to the old one and moved over it, so a crash leaves one or the other.
+     */
+    void rewrite(Consumer<Batch> contents) throws IOException {
+        var compacted = path.resolveSibling(path.getFileName() + ".compacting");
+        try (var out = FileChannel.open(compacted, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            var batch = new Batch(COMPACTED_RECORDS_PER_FRAME);
+            contents.accept(batch);
+            var buffer = ByteBuffer.wrap(batch.framed());
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(true);
+        }
+        channel.close();
+        Files.move(compacted, path, ATOMIC_MOVE, REPLACE_EXISTING);
+        channel = FileChannel.open(path, WRITE);
+        channel.position(channel.size());
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    /**
+     * The payload of the next intact frame, or {@code null} at the end of the log or at the first torn frame.
+     * {@code remaining} is what is left of the log, so a torn length cannot make it allocate more than that.
+     */
+    private static byte[] read(DataInputStream in, long remaining) throws IOException {
+        try {
+            var length = in.readInt();
+            if (length <= 0 || length > remaining - 2L * Integer.BYTES) {
+                return null;
+            }
+            var payload = new byte[length];
+            in.readFully(payload);
+            var checksum = in.readInt();
+            return checksum == checksum(payload) ? payload : null;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Feeds the records of one frame to {@code replay} and returns how many there were.
+     */
+    private static int apply(byte[] payload, Replay replay) throws IOException {
+        var in = new DataInputStream(new ByteArrayInputStream(payload));
+        var records = 0;
+        while (in.available() > 0) {
+            var type = in.readByte();
+            if (type == DELETE) {
+                replay.deleted(in.readInt(), in.readLong());
+            } else if (type == UPSERT) {
+                var id = in.readInt();
+                var supervisorId = in.readInt();
+                var creationDate = in.readLong();
+                var version = in.readLong();
+                var changeSequence = in.readLong();
+                replay.upserted(new Row(id, supervisorId, readString(in), readString(in), readString(in),
+                        creationDate, version, changeSequence));
+            } else {
+                throw new IOException("Unknown record type " + type);
+            }
+            records++;
+        }
+        return records;
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        var length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        var bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int checksum(byte[] payload) {
+        var crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Records collected by one transaction, appended as one frame. A compacted log is cut into frames of
+     * {@code recordsPerFrame} records instead; it replaces the log as a whole, so it needs no frame of its own.
+     */
+    static final class Batch {
+
+        private final int recordsPerFrame;
+        private final ByteArrayOutputStream frames = new ByteArrayOutputStream();
+        private final ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(payload);
+        private int records;
+        private int unframed;
+
+        Batch() {
+            this(Integer.MAX_VALUE);
+        }
+
+        private Batch(int recordsPerFrame) {
+            this.recordsPerFrame = recordsPerFrame;
+        }
+
+        void upsert(Row row) {
+            try {
+                out.writeByte(UPSERT);
+                out.writeInt(row.id());
+                out.writeInt(row.supervisorId());
+                out.writeLong(row.creationDate());
+                out.writeLong(row.version());
+                out.writeLong(row.changeSequence());
+                writeString(row.firstName());
+                writeString(row.lastName());
+                writeString(row.position());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            added();
+        }
+
+        void delete(int id, long changeSequence) {
+            try {
+                out.writeByte(DELETE);
+                out.writeInt(id);
+                out.writeLong(changeSequence);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            added();
+        }
+
+        boolean isEmpty() {
+            return records == 0;
+        }
+
+        private void writeString(String value) throws IOException {
+            if (value == null) {
+                out.writeInt(-1);
+                return;
+            }
+            var encoded = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(encoded.length);
+            out.write(encoded);
+        }
+
+        private void added() {
+            records++;
+            if (++unframed == recordsPerFrame) {
+                frame();
+            }
+        }
+
+        private byte[] framed() {
+            frame();
+            return frames.toByteArray();
+        }
+
+        private void frame() {
+            if (unframed == 0) {
+                return;
+            }
+            var contents = payload.toByteArray();
+            payload.reset();
+            unframed = 0;
+            var frame = ByteBuffer.allocate(Integer.BYTES + contents.length + Integer.BYTES)
+                    .putInt(contents.length).put(contents).putInt(checksum(contents));
+            frames.write(frame.array(), 0, frame.capacity());
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package sandbox.challenge.employees.repository;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import sandbox.challenge.employees.domain.Employee;
+import sandbox.challenge.employees.domain.EmployeeChange;
+import sandbox.challenge.employees.domain.EmployeeFilter;
+import sandbox.challenge.employees.domain.EmployeeTombstone;
+import sandbox.challenge.employees.domain.EmployeeView;
+import sandbox.challenge.employees.domain.HierarchyEdge;
+import sandbox.challenge.employees.domain.SubtreeNode;
+import sandbox.challenge.employees.service.EmployeeChangeSequence;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static java.util.Comparator.comparing;
+import static java.util.stream.Collectors.toSet;
+import static sandbox.challenge.employees.repository.EmployeeRepository.STREAM_FETCH_SIZE;
+import static sandbox.challenge.employees.repository.EmployeeSpecifications.idAfter;
+import static sandbox.challenge.employees.repository.EmployeeSpecifications.matching;
+
+/**
+ * The relational store: employees are JPA entities in the {@code employee} table, cached in the second-level cache.
+ * Rows are stamped with their change sequence by {@code EmployeeChangeListener}.
+ */
+@Component
+@ConditionalOnProperty(name = "employees.store.type", havingValue = "jpa", matchIfMissing = true)
+public class JpaEmployeeStore implements EmployeeStore {
+
+    private final EmployeeRepository employeeRepository;
+    private final EmployeeTombstoneRepository tombstoneRepository;
+    private final EntityManager entityManager;
+    private final EmployeeChangeSequence changeSequence;
+
+    public JpaEmployeeStore(EmployeeRepository employeeRepository, EmployeeTombstoneRepository tombstoneRepository,
+                            EntityManager entityManager, EmployeeChangeSequence changeSequence) {
+        this.employeeRepository = employeeRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.entityManager = entityManager;
+        this.changeSequence = changeSequence;
+    }
+
+    @Override
+    public Employee save(Employee employee) {
+        return employeeRepository.save(employee);
+    }
+
+    /**
+     * Inserts are flushed in JDBC batches thanks to the pooled id sequence.
+     */
+    @Override
+    public List<Employee> saveAll(List<Employee> employees) {
+        return employeeRepository.saveAll(employees);
+    }
+
+    @Override
+    public Optional<Employee> findById(Long id) {
+        return employeeRepository.findById(id);
+    }
+
+    @Override
+    public List<Employee> findAllById(Collection<Long> ids) {
+        return employeeRepository.findAllById(ids);
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return employeeRepository.existsById(id);
+    }
+
+    @Override
+    public Employee getReferenceById(Long id) {
+        return employeeRepository.getReferenceById(id);
+    }
+
+    @Override
+    public void delete(Long id) {
+        employeeRepository.deleteById(id);
+        tombstoneRepository.save(new EmployeeTombstone(id, changeSequence.next()));
+    }
+
+    @Override
+    public List<EmployeeView> findAllViews() {
+        return employeeRepository.findAllViews();
+    }
+
+    @Override
+    public List<EmployeeView> findViews(EmployeeFilter filter, Sort sort) {
+        return employeeRepository.findAll(matching(filter), sort).stream().map(EmployeeView::from).toList();
+    }
+
+    @Override
+    public List<EmployeeView> findViewsAfter(EmployeeFilter filter, Long after, int limit) {
+        if (filter.isEmpty()) {
+            return employeeRepository.findViewsAfter(after == null ? 0L : after, Limit.of(limit));
+        }
+        var rows = employeeRepository.findBy(matching(filter).and(idAfter(after)),
+                query -> query.sortBy(Sort.by("id")).limit(limit).all());
+        return rows.stream().map(EmployeeView::from).toList();
+    }
+
+    @Override
+    public long count(EmployeeFilter filter) {
+        return filter.isEmpty() ? employeeRepository.count() : employeeRepository.count(matching(filter));
+    }
+
+    /**
+     * Holds at most one fetch of rows in memory: the persistence context is cleared after each fetch so already
+     * written entities can be collected. The stream needs a transaction of its own; the service waits for queued
+     * updates before it calls this, without holding a connection.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportAll(Consumer<EmployeeView> sink) {
+        try (var employees = employeeRepository.streamAll()) {
+            var rows = 0;
+            for (var iterator = employees.iterator(); iterator.hasNext(); ) {
+                sink.accept(EmployeeView.from(iterator.next()));
+                if (++rows % STREAM_FETCH_SIZE == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+    }
+
+    @Override
+    public List<EmployeeView> findBySupervisorId(Long supervisorId) {
+        return employeeRepository.findBySupervisorId(supervisorId).stream().map(EmployeeView::from).toList();
+    }
+
+    /**
+     * One recursive CTE, so the whole subtree costs one round trip.
+     */
+    @Override
+    public List<SubtreeNode> findSubtree(Long id, int depth) {
+        return employeeRepository.findSubtree(id, depth).stream()
+                .map(row -> new SubtreeNode(row.getId(), row.getFirstName(), row.getLastName(), row.getPosition(),
+                        row.getSupervisorId(), row.getCreationDate(), row.getDepth()))
+                .toList();
+    }
+
+    @Override
+    public List<EmployeeView> findViewsByIdIn(Collection<Long> ids) {
+        return employeeRepository.findViewsByIdIn(ids);
+    }
+
+    @Override
+    public List<Long> findExistingIds(Collection<Long> ids) {
+        return employeeRepository.findExistingIds(ids);
+    }
+
+    @Override
+    public List<HierarchyEdge> findHierarchyEdges() {
+        return employeeRepository.findHierarchyEdges();
+    }
+
+    /**
+     * One bulk UPDATE for the supervisor, which stamps the subordinates with consecutive change sequences in id order,
+     * so a delta sync page can end between any two of them; the subtree below each moved subordinate gets its paths re-rooted,
+     * deepest first so a moved subtree nested inside another is rewritten before its ancestor's prefix changes.
+     */
+    @Override
+    public void reassign(Employee supervisor, List<Employee> subordinates) {
+        var path = supervisor.subordinatePath();
+        var ids = subordinates.stream().map(Employee::getId).collect(toSet());
+        employeeRepository.updateSupervisor(supervisor, path, ids, changeSequence.next(ids.size()));
+        subordinates.stream()
+                .filter(subordinate -> !path.equals(subordinate.getPath()))
+                .sorted(comparing((Employee subordinate) -> subordinate.getPath().length()).reversed())
+                .forEach(subordinate -> employeeRepository.movePaths(subordinate.subordinatePath(),
+                        path + subordinate.getId() + "/"));
+    }
+
+    @Override
+    public void movePaths(String oldPrefix, String newPrefix) {
+        employeeRepository.movePaths(oldPrefix, newPrefix);
+    }
+
+    @Override
+    public List<EmployeeChange> findUpsertsBetween(long after, long upTo, int limit) {
+        return employeeRepository.findChangesBetween(after, upTo, Limit.of(limit));
+    }
+
+    @Override
+    public List<EmployeeChange> findDeletionsBetween(long after, long upTo, int limit) {
+        return tombstoneRepository.findChangesBetween(after, upTo, Limit.of(limit));
+    }
+}
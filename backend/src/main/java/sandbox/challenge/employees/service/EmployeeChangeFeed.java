@@ -0,0 +1,236 @@
+package sandbox.challenge.employees.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import sandbox.challenge.employees.config.EmployeesProperties;
+import sandbox.challenge.employees.domain.EmployeeChange;
+import sandbox.challenge.employees.domain.EmployeeView;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static sandbox.challenge.employees.domain.EmployeeChange.Type.DELETE;
+import static sandbox.challenge.employees.domain.EmployeeChange.Type.UPSERT;
+
+/**
+ * In-process bus of employee changes, fed by {@link EmployeeService}. A change is published once its transaction
+ * has committed (right away outside a transaction) and gets the next sequence number, so subscribers see changes
+ * in commit order and never see a rolled back one.
+ * <p>
+ * Subscribers keep their place as a position: the sequence qualified by the startup epoch, so a position handed
+ * out before a restart is never mistaken for one of this run. The last {@code retained} changes are kept, so a
+ * subscriber can resume after the position it saw last. A new subscriber, and one whose position is no longer
+ * retained or comes from before a restart, is told to reset instead.
+ * <p>
+ * Every subscriber has its own queue of at most {@code backlog} changes, drained on a thread of its own while it
+ * is not empty, so writers never wait for a client and one slow client never holds up the others. A subscriber
+ * that falls further behind than that has its queue replaced by a reset.
+ */
+@Component
+public class EmployeeChangeFeed {
+
+    private static final Logger log = LoggerFactory.getLogger(EmployeeChangeFeed.class);
+
+    /**
+     * Receives changes on a delivery thread, one at a time and in sequence order. Returning {@code false} ends
+     * the subscription.
+     */
+    public interface Subscriber {
+
+        boolean onChange(String position, EmployeeChange change);
+
+        /**
+         * Changes before {@code position} are not sent; the subscriber has to reload and continue from there.
+         */
+        boolean onReset(String position);
+    }
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final int retained;
+    private final int backlog;
+    private final ArrayDeque<EmployeeChange> recent = new ArrayDeque<>();
+    private final List<Subscription> subscriptions = new ArrayList<>();
+    private final ExecutorService delivery = Executors.newCachedThreadPool(runnable -> {
+        var thread = new Thread(runnable, "employee-change-feed");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private long sequence;
+
+    @Autowired
+    public EmployeeChangeFeed(EmployeesProperties properties) {
+        this(properties.changeFeed().retained(), properties.changeFeed().backlog());
+    }
+
+    public EmployeeChangeFeed(int retained, int backlog) {
+        this.retained = retained;
+        this.backlog = backlog;
+    }
+
+    public void upserted(EmployeeView employee) {
+        publishAfterCommit(UPSERT, employee.id(), employee);
+    }
+
+    public void deleted(Long id) {
+        publishAfterCommit(DELETE, id, null);
+    }
+
+    public synchronized long latestSequence() {
+        return sequence;
+    }
+
+    /**
+     * Sends {@code subscriber} every retained change after position {@code since}, then every new one. Without
+     * {@code since} it starts with a reset at the latest position.
+     */
+    public void subscribe(String since, Subscriber subscriber) {
+        var subscription = new Subscription(subscriber);
+        synchronized (this) {
+            var from = sequenceOf(since);
+            var oldest = recent.isEmpty() ? sequence + 1 : recent.peekFirst().sequence();
+            if (from < 0 || from > sequence || from + 1 < oldest) {
+                subscription.offerReset(sequence);
+            } else {
+                recent.stream().filter(change -> change.sequence() > from).forEach(subscription.queue::add);
+            }
+            subscriptions.add(subscription);
+        }
+        subscription.schedule();
+    }
+
+    public synchronized void unsubscribe(Subscriber subscriber) {
+        subscriptions.removeIf(subscription -> subscription.subscriber == subscriber);
+    }
+
+    private String position(long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    /**
+     * The sequence in {@code position}, or {@code -1} if there is none or it was handed out before a restart.
+     */
+    private long sequenceOf(String position) {
+        if (position == null || !position.startsWith(epoch + "-")) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(position.substring(epoch.length() + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void publishAfterCommit(EmployeeChange.Type type, Long id, EmployeeView employee) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(type, id, employee);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish(type, id, employee);
+            }
+        });
+    }
+
+    private void publish(EmployeeChange.Type type, Long id, EmployeeView employee) {
+        List<Subscription> receivers;
+        synchronized (this) {
+            var change = new EmployeeChange(++sequence, type, id, employee);
+            recent.addLast(change);
+            if (recent.size() > retained) {
+                recent.removeFirst();
+            }
+            for (var subscription : subscriptions) {
+                subscription.offer(change);
+            }
+            receivers = List.copyOf(subscriptions);
+        }
+        receivers.forEach(Subscription::schedule);
+    }
+
+    @PreDestroy
+    public void close() {
+        delivery.shutdownNow();
+    }
+
+    /**
+     * A subscriber and the changes it has yet to be sent. A reset waits in the queue as an {@link EmployeeChange}
+     * without a type.
+     */
+    private final class Subscription {
+
+        private final Subscriber subscriber;
+        // guarded by the feed
+        private final ArrayDeque<EmployeeChange> queue = new ArrayDeque<>();
+        // guarded by the feed
+        private boolean draining;
+
+        private Subscription(Subscriber subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        private void offer(EmployeeChange change) {
+            if (queue.size() < backlog) {
+                queue.addLast(change);
+                return;
+            }
+            log.debug("Change feed subscriber fell {} changes behind, resetting it", queue.size());
+            queue.clear();
+            offerReset(change.sequence());
+        }
+
+        private void offerReset(long sequence) {
+            queue.addLast(new EmployeeChange(sequence, null, null, null));
+        }
+
+        private void schedule() {
+            synchronized (EmployeeChangeFeed.this) {
+                if (draining || queue.isEmpty()) {
+                    return;
+                }
+                draining = true;
+            }
+            delivery.execute(this::drain);
+        }
+
+        private void drain() {
+            while (true) {
+                EmployeeChange next;
+                synchronized (EmployeeChangeFeed.this) {
+                    next = queue.pollFirst();
+                    if (next == null) {
+                        draining = false;
+                        return;
+                    }
+                }
+                if (!deliver(next)) {
+                    synchronized (EmployeeChangeFeed.this) {
+                        subscriptions.remove(this);
+                        queue.clear();
+                        draining = false;
+                    }
+                    return;
+                }
+            }
+        }
+
+        private boolean deliver(EmployeeChange change) {
+            try {
+                var position = position(change.sequence());
+                return change.type() == null ? subscriber.onReset(position) : subscriber.onChange(position, change);
+            } catch (RuntimeException e) {
+                log.debug("Dropping change feed subscriber", e);
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package sandbox.challenge.employees.service;
+
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import sandbox.challenge.employees.domain.Employee;
+
+/**
+ * Stamps every inserted or changed employee row with the next change sequence. Hibernate creates the listener
+ * through Spring, which supplies the sequence. Bulk JPQL updates bypass it and set the sequence themselves.
+ */
+public class EmployeeChangeListener {
+
+    private final EmployeeChangeSequence changeSequence;
+
+    public EmployeeChangeListener(EmployeeChangeSequence changeSequence) {
+        this.changeSequence = changeSequence;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void stamp(Employee employee) {
+        employee.setChangeSequence(changeSequence.next());
+    }
+}
@@ -0,0 +1,100 @@
+package sandbox.challenge.employees.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.TreeSet;
+
+/**
+ * Hands out the change sequence stamped on every written employee row and tombstone, which is the cursor of
+ * {@code GET /api/employees/changes}. It continues after the highest sequence in the database, read on first use.
+ * <p>
+ * Sequences are taken while a transaction writes, so they commit out of order: a row stamped 7 may become
+ * visible after one stamped 8. A sequence stays in flight until its transaction ends, and
+ * {@link #visibleUpTo()} stops just below the oldest one still in flight, so a client that reads changes up to
+ * that point and resumes from there never skips a row that commits late.
+ */
+@Component
+public class EmployeeChangeSequence {
+
+    private static final String MAX_SEQUENCE = "select coalesce(max(change_sequence), 0) from ";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TreeSet<Long> inFlight = new TreeSet<>();
+    private long last;
+    private boolean loaded;
+
+    /**
+     * The sequence is read over plain JDBC rather than a repository: {@link EmployeeChangeListener} needs it while
+     * the persistence unit is still being built, and during flushes, where a JPA query would flush again.
+     */
+    @Autowired
+    public EmployeeChangeSequence(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public EmployeeChangeSequence(long last) {
+        this.jdbcTemplate = null;
+        this.last = last;
+        this.loaded = true;
+    }
+
+    public long next() {
+        return next(1);
+    }
+
+    /**
+     * Takes {@code count} consecutive sequences and returns the first, for a bulk write that stamps each of its rows
+     * with a sequence of its own. They stay in flight together until the transaction ends.
+     */
+    public synchronized long next(int count) {
+        ensureLoaded();
+        var sequence = last + 1;
+        last += count;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            inFlight.add(sequence);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    release(sequence);
+                }
+            });
+        }
+        return sequence;
+    }
+
+    /**
+     * Continues after {@code sequence} if it is ahead, for stores that keep their rows outside the database.
+     */
+    public synchronized void advanceTo(long sequence) {
+        last = Math.max(last, sequence);
+    }
+
+    /**
+     * The highest sequence below which every row is committed or rolled back.
+     */
+    public synchronized long visibleUpTo() {
+        ensureLoaded();
+        return inFlight.isEmpty() ? last : inFlight.first() - 1;
+    }
+
+    private synchronized void release(long sequence) {
+        inFlight.remove(sequence);
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        last = Math.max(last, Math.max(maxSequence("employee"), maxSequence("employee_tombstone")));
+        loaded = true;
+    }
+
+    private long maxSequence(String table) {
+        var max = jdbcTemplate.queryForObject(MAX_SEQUENCE + table, Long.class);
+        return max != null ? max : 0L;
+    }
+}
@@ -3,7 +3,6 @@ package sandbox.challenge.employees.service;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
-import com.fasterxml.jackson.databind.JsonNode;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import sandbox.challenge.employees.domain.Employee;
@@ -11,45 +10,66 @@ import sandbox.challenge.employees.exception.ResourceNotFoundException;
 
 import java.io.IOException;
 
+import static com.fasterxml.jackson.core.JsonToken.VALUE_NULL;
+import static com.fasterxml.jackson.core.JsonToken.VALUE_NUMBER_INT;
+import static sandbox.challenge.employees.service.EmployeePatchDeserializer.supervisorId;
+import static sandbox.challenge.employees.service.EmployeePatchDeserializer.text;
+
+/**
+ * Reads an {@link Employee} straight off the token stream, field by field, without building a tree first.
+ * Unknown fields are skipped. {@code supervisorId} is read like in {@link EmployeePatchDeserializer} and
+ * resolved to a reference once the whole object is read, after checking that the supervisor exists.
+ */
 @Component
 public class EmployeeDeserializer extends JsonDeserializer<Employee> {
 
     private EmployeeService employeeService;
+    private EmployeeMetrics metrics;
 
     @Autowired
     public void setEmployeeService(EmployeeService employeeService) {
         this.employeeService = employeeService;
     }
 
+    @Autowired
+    public void setMetrics(EmployeeMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     @Override
     public Employee deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
-        JsonNode node = p.getCodec().readTree(p);
-
-        var id = node.has("id") ? node.get("id").asLong() : null;
-        var firstName = node.has("firstName") ? node.get("firstName").asText() : null;
-        var lastName = node.has("lastName") ? node.get("lastName").asText() : null;
-        var position = node.has("position") ? node.get("position").asText() : null;
+        if (!p.isExpectedStartObjectToken()) {
+            return (Employee) ctxt.handleUnexpectedToken(Employee.class, p);
+        }
 
         var employee = new Employee();
-        employee.setId(id);
-        employee.setFirstName(firstName);
-        employee.setLastName(lastName);
-        employee.setPosition(position);
-
-        if (node.has("supervisorId") && node.get("supervisorId") != null) {
-            var supervisorIdStr = node.get("supervisorId").asText();
-            if (supervisorIdStr != null && !supervisorIdStr.isEmpty()) {
-                try {
-                    var supervisorId = Long.parseLong(supervisorIdStr);
-                    var supervisor = employeeService.getById(supervisorId).orElseThrow(() -> new ResourceNotFoundException("Supervisor not found"));
-                    employee.setSupervisor(supervisor);
-                } catch (NumberFormatException e) {
-                    throw new ResourceNotFoundException("Invalid supervisor ID format");
-                }
+        Long supervisorId = null;
+        for (var name = p.nextFieldName(); name != null; name = p.nextFieldName()) {
+            var token = p.nextToken();
+            switch (name) {
+                case "id" -> employee.setId(token == VALUE_NUMBER_INT ? Long.valueOf(p.getLongValue())
+                        : token == VALUE_NULL ? null : ctxt.readValue(p, Long.class));
+                case "firstName" -> employee.setFirstName(text(p, token, ctxt));
+                case "lastName" -> employee.setLastName(text(p, token, ctxt));
+                case "position" -> employee.setPosition(text(p, token, ctxt));
+                case "supervisorId" -> supervisorId = supervisorId(p, token, ctxt);
+                default -> p.skipChildren();
             }
         }
-
+        if (supervisorId != null) {
+            employee.setSupervisor(supervisor(supervisorId));
+        }
         return employee;
     }
-}
 
+    private Employee supervisor(Long supervisorId) {
+        var lookup = metrics.startSupervisorLookup();
+        if (!employeeService.exists(supervisorId)) {
+            metrics.stopSupervisorLookup(lookup, false);
+            throw new ResourceNotFoundException("Supervisor not found");
+        }
+        var supervisor = employeeService.getReference(supervisorId);
+        metrics.stopSupervisorLookup(lookup, true);
+        return supervisor;
+    }
+}
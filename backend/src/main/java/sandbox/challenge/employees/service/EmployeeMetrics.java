@@ -0,0 +1,51 @@
+package sandbox.challenge.employees.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Meters that cannot be expressed with {@code @Timed} on a public service method: the supervisor chain depth
+ * checked by cycle validation, and supervisor lookups made while parsing request bodies.
+ */
+@Component
+public class EmployeeMetrics {
+
+    public static final String SERVICE_TIMER = "employees.service";
+
+    private final MeterRegistry registry;
+    private final DistributionSummary supervisorChainDepth;
+    private final Timer supervisorFound;
+    private final Timer supervisorMissing;
+
+    public EmployeeMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.supervisorChainDepth = DistributionSummary.builder("employees.supervisor.chain.depth")
+                .description("Management levels above the new supervisor checked when validating an assignment")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.supervisorFound = supervisorLookupTimer("found");
+        this.supervisorMissing = supervisorLookupTimer("missing");
+    }
+
+    private Timer supervisorLookupTimer(String outcome) {
+        return Timer.builder("employees.deserializer.supervisor.lookup")
+                .description("Supervisor existence check and reference lookup while parsing a request body")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    void recordSupervisorChainDepth(int depth) {
+        supervisorChainDepth.record(depth);
+    }
+
+    Timer.Sample startSupervisorLookup() {
+        return Timer.start(registry);
+    }
+
+    void stopSupervisorLookup(Timer.Sample sample, boolean found) {
+        sample.stop(found ? supervisorFound : supervisorMissing);
+    }
+}
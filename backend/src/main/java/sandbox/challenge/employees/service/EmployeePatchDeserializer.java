@@ -0,0 +1,88 @@
+package sandbox.challenge.employees.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import sandbox.challenge.employees.domain.EmployeePatch;
+import sandbox.challenge.employees.exception.ResourceNotFoundException;
+
+import java.io.IOException;
+
+import static com.fasterxml.jackson.core.JsonToken.VALUE_NULL;
+import static com.fasterxml.jackson.core.JsonToken.VALUE_NUMBER_INT;
+import static sandbox.challenge.employees.domain.EmployeePatch.FIRST_NAME;
+import static sandbox.challenge.employees.domain.EmployeePatch.LAST_NAME;
+import static sandbox.challenge.employees.domain.EmployeePatch.POSITION;
+import static sandbox.challenge.employees.domain.EmployeePatch.SUPERVISOR_ID;
+
+/**
+ * Reads an {@link EmployeePatch} straight off the token stream, without building a map or a tree first.
+ * Unknown fields are skipped. {@code supervisorId} may be a number or a numeric string; {@code null} or an
+ * empty string removes the supervisor.
+ */
+public class EmployeePatchDeserializer extends JsonDeserializer<EmployeePatch> {
+
+    @Override
+    public EmployeePatch deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (!p.isExpectedStartObjectToken()) {
+            return (EmployeePatch) ctxt.handleUnexpectedToken(EmployeePatch.class, p);
+        }
+
+        Long id = null;
+        String firstName = null;
+        String lastName = null;
+        String position = null;
+        Long supervisorId = null;
+        var fields = 0;
+        for (var name = p.nextFieldName(); name != null; name = p.nextFieldName()) {
+            var token = p.nextToken();
+            switch (name) {
+                case "id" -> id = token == VALUE_NULL ? null : ctxt.readValue(p, Long.class);
+                case "firstName" -> {
+                    firstName = text(p, token, ctxt);
+                    fields |= FIRST_NAME;
+                }
+                case "lastName" -> {
+                    lastName = text(p, token, ctxt);
+                    fields |= LAST_NAME;
+                }
+                case "position" -> {
+                    position = text(p, token, ctxt);
+                    fields |= POSITION;
+                }
+                case "supervisorId" -> {
+                    supervisorId = supervisorId(p, token, ctxt);
+                    fields |= SUPERVISOR_ID;
+                }
+                default -> p.skipChildren();
+            }
+        }
+        return new EmployeePatch(id, firstName, lastName, position, supervisorId, fields);
+    }
+
+    static String text(JsonParser p, JsonToken token, DeserializationContext ctxt) throws IOException {
+        if (token == VALUE_NULL) {
+            return null;
+        }
+        if (!token.isScalarValue()) {
+            return (String) ctxt.handleUnexpectedToken(String.class, p);
+        }
+        return p.getText();
+    }
+
+    static Long supervisorId(JsonParser p, JsonToken token, DeserializationContext ctxt) throws IOException {
+        if (token == VALUE_NUMBER_INT) {
+            return p.getLongValue();
+        }
+        var text = text(p, token, ctxt);
+        if (text == null || text.isEmpty()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            throw new ResourceNotFoundException("Invalid supervisor ID format");
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package sandbox.challenge.employees.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import sandbox.challenge.employees.domain.Employee;
+
+import java.io.IOException;
+
+/**
+ * Writes an {@link Employee} in the shape of {@code EmployeeView}: the supervisor as a flat {@code supervisorId},
+ * taken from the reference without loading the supervisor's row, and nothing of the persistence bookkeeping.
+ */
+public class EmployeeSerializer extends StdSerializer<Employee> {
+
+    public EmployeeSerializer() {
+        super(Employee.class);
+    }
+
+    @Override
+    public void serialize(Employee employee, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        var supervisor = employee.getSupervisor();
+        EmployeeViewSerializer.write(gen, employee, employee.getId(), employee.getFirstName(), employee.getLastName(),
+                employee.getPosition(), supervisor != null ? supervisor.getId() : null, employee.getCreationDate());
+    }
+}
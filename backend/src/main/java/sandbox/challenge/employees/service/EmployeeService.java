@@ -1,130 +1,604 @@
 package sandbox.challenge.employees.service;
 
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import sandbox.challenge.employees.domain.BulkEmployeeRequest;
+import sandbox.challenge.employees.domain.BulkEmployeeResult;
+import sandbox.challenge.employees.domain.CursorPage;
 import sandbox.challenge.employees.domain.Employee;
+import sandbox.challenge.employees.domain.EmployeeChange;
+import sandbox.challenge.employees.domain.EmployeeChanges;
+import sandbox.challenge.employees.domain.EmployeeFilter;
+import sandbox.challenge.employees.domain.EmployeePatch;
+import sandbox.challenge.employees.domain.EmployeeView;
+import sandbox.challenge.employees.domain.SubtreeNode;
 import sandbox.challenge.employees.exception.InfiniteRecursionException;
+import sandbox.challenge.employees.exception.InvalidQueryException;
+import sandbox.challenge.employees.exception.PreconditionFailedException;
 import sandbox.challenge.employees.exception.ResourceNotFoundException;
 import sandbox.challenge.employees.exception.SupervisorHasSubordinatesException;
-import sandbox.challenge.employees.repository.EmployeeRepository;
+import sandbox.challenge.employees.repository.EmployeeStore;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
 
-import static java.time.LocalDateTime.now;
+import static java.util.Comparator.comparing;
+import static java.util.stream.Collectors.joining;
+import static sandbox.challenge.employees.config.CacheConfig.EXISTING_EMPLOYEE_IDS;
+import static sandbox.challenge.employees.domain.EmployeePatch.SUPERVISOR_ID;
+import static sandbox.challenge.employees.repository.EmployeeSpecifications.checked;
+import static sandbox.challenge.employees.service.EmployeeMetrics.SERVICE_TIMER;
 
+import static java.time.LocalDateTime.now;
 
 @Service
 public class EmployeeService {
 
-    private final EmployeeRepository employeeRepository;
+    private final EmployeeStore employeeStore;
+    private final HierarchyIndex hierarchyIndex;
+    private final SearchIndex searchIndex;
+    private final Validator validator;
+    private final EmployeeTableVersion tableVersion;
+    private final EmployeeMetrics metrics;
+    private final EmployeeWriteBehind writeBehind;
+    private final EmployeeChangeFeed changeFeed;
+    private final EmployeeChangeSequence changeSequence;
 
-    public EmployeeService(EmployeeRepository employeeRepository) {
-        this.employeeRepository = employeeRepository;
+    public EmployeeService(EmployeeStore employeeStore, HierarchyIndex hierarchyIndex, SearchIndex searchIndex,
+                           Validator validator, EmployeeTableVersion tableVersion, EmployeeMetrics metrics,
+                           EmployeeWriteBehind writeBehind, EmployeeChangeFeed changeFeed,
+                           EmployeeChangeSequence changeSequence) {
+        this.employeeStore = employeeStore;
+        this.hierarchyIndex = hierarchyIndex;
+        this.searchIndex = searchIndex;
+        this.validator = validator;
+        this.tableVersion = tableVersion;
+        this.metrics = metrics;
+        this.writeBehind = writeBehind;
+        this.changeFeed = changeFeed;
+        this.changeSequence = changeSequence;
     }
 
+    @Timed(value = SERVICE_TIMER, histogram = true)
     public Employee create(Employee employee) {
+        var violations = validator.validate(employee);
+        if (!violations.isEmpty()) {
+            throw new ConstraintViolationException(violations);
+        }
         validateSupervisor(employee);
         employee.setCreationDate(now());
-        return employeeRepository.save(employee);
+        var saved = employeeStore.save(employee);
+        hierarchyIndex.put(saved.getId(), supervisorIdOf(saved));
+        var view = EmployeeView.from(saved);
+        searchIndex.put(view);
+        changeFeed.upserted(view);
+        tableVersion.changed();
+        return saved;
+    }
+
+    /**
+     * Creates every valid row in one transaction and reports one result per row, in input order.
+     * Rows that reference each other through {@code supervisorKey} are ordered topologically in a single pass,
+     * which also rejects cycles; rows whose supervisor row is rejected are rejected as well.
+     */
+    @Transactional
+    @Timed(value = SERVICE_TIMER, histogram = true)
+    public List<BulkEmployeeResult> createAll(List<BulkEmployeeRequest> rows) {
+        var errors = new String[rows.size()];
+        var employees = new Employee[rows.size()];
+        var rowByKey = new HashMap<String, Integer>();
+        for (var i = 0; i < rows.size(); i++) {
+            var key = rows.get(i).key();
+            if (key != null && rowByKey.putIfAbsent(key, i) != null) {
+                errors[i] = "Duplicate key " + key;
+            }
+        }
+
+        var existingSupervisorIds = findExistingIds(rows.stream().map(BulkEmployeeRequest::supervisorId).filter(Objects::nonNull).distinct().toList());
+        for (var i = 0; i < rows.size(); i++) {
+            employees[i] = toEmployee(rows.get(i));
+            if (errors[i] == null) {
+                errors[i] = validateRow(rows.get(i), employees[i], rowByKey, existingSupervisorIds);
+            }
+        }
+
+        var creationDate = now();
+        var created = new ArrayList<Employee>();
+        for (var i : orderBySupervisorKey(rows, rowByKey, errors)) {
+            var row = rows.get(i);
+            var employee = employees[i];
+            if (row.supervisorId() != null) {
+                employee.setSupervisor(employeeStore.getReferenceById(row.supervisorId()));
+            } else if (row.supervisorKey() != null) {
+                employee.setSupervisor(employees[rowByKey.get(row.supervisorKey())]);
+            }
+            employee.setCreationDate(creationDate);
+            created.add(employee);
+        }
+
+        employeeStore.saveAll(created);
+        created.forEach(employee -> {
+            hierarchyIndex.put(employee.getId(), supervisorIdOf(employee));
+            var view = EmployeeView.from(employee);
+            searchIndex.put(view);
+            changeFeed.upserted(view);
+        });
+        tableVersion.changed();
+
+        var results = new ArrayList<BulkEmployeeResult>(rows.size());
+        for (var i = 0; i < rows.size(); i++) {
+            var key = rows.get(i).key();
+            results.add(errors[i] == null ? BulkEmployeeResult.created(key, employees[i].getId()) : BulkEmployeeResult.failed(key, errors[i]));
+        }
+        return results;
+    }
+
+    private HashSet<Long> findExistingIds(List<Long> ids) {
+        return ids.isEmpty() ? new HashSet<>() : new HashSet<>(employeeStore.findExistingIds(ids));
+    }
+
+    private static Employee toEmployee(BulkEmployeeRequest row) {
+        var employee = new Employee();
+        employee.setFirstName(row.firstName());
+        employee.setLastName(row.lastName());
+        employee.setPosition(row.position());
+        return employee;
+    }
+
+    private String validateRow(BulkEmployeeRequest row, Employee employee, Map<String, Integer> rowByKey, HashSet<Long> existingSupervisorIds) {
+        var violations = validator.validate(employee);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .sorted(comparing(violation -> violation.getPropertyPath().toString()))
+                    .map(ConstraintViolation::getMessage)
+                    .collect(joining(", "));
+        }
+        if (row.supervisorId() != null && row.supervisorKey() != null) {
+            return "Specify either supervisorId or supervisorKey, not both";
+        }
+        if (row.supervisorId() != null && !existingSupervisorIds.contains(row.supervisorId())) {
+            return "Supervisor not found";
+        }
+        if (row.supervisorKey() != null && !rowByKey.containsKey(row.supervisorKey())) {
+            return "Supervisor not found";
+        }
+        return null;
+    }
+
+    /**
+     * Kahn's algorithm over in-payload supervisor references: returns the indexes of the rows to insert,
+     * supervisors first. Rows that are never reached sit on (or below) a cycle and get an error instead.
+     */
+    private static List<Integer> orderBySupervisorKey(List<BulkEmployeeRequest> rows, Map<String, Integer> rowByKey, String[] errors) {
+        var subordinateRows = new HashMap<Integer, List<Integer>>();
+        var ready = new ArrayDeque<Integer>();
+        for (var i = 0; i < rows.size(); i++) {
+            var supervisorRow = rows.get(i).supervisorKey() == null ? null : rowByKey.get(rows.get(i).supervisorKey());
+            if (supervisorRow == null) {
+                ready.add(i);
+            } else {
+                subordinateRows.computeIfAbsent(supervisorRow, row -> new ArrayList<>()).add(i);
+            }
+        }
+
+        var order = new ArrayList<Integer>();
+        var reached = new boolean[rows.size()];
+        while (!ready.isEmpty()) {
+            int i = ready.poll();
+            reached[i] = true;
+            if (errors[i] == null) {
+                order.add(i);
+            }
+            for (var subordinate : subordinateRows.getOrDefault(i, List.of())) {
+                if (errors[i] != null && errors[subordinate] == null) {
+                    errors[subordinate] = "Supervisor row " + rows.get(i).key() + " was rejected";
+                }
+                ready.add(subordinate);
+            }
+        }
+
+        for (var i = 0; i < rows.size(); i++) {
+            if (!reached[i] && errors[i] == null) {
+                errors[i] = "Cannot assign supervisor that creates a cycle";
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Tag that changes whenever any employee is written; capture it before reading the data it describes.
+     */
+    public String getTableVersion() {
+        return tableVersion.current();
+    }
+
+    /**
+     * Read barrier for callers that look up more than once. With open-in-view the first lookup keeps its connection
+     * until the response is written, so they wait for queued updates before it rather than while holding it.
+     */
+    public void awaitQueuedWrites() {
+        writeBehind.awaitFlushed();
+    }
+
+    @Timed(value = SERVICE_TIMER, histogram = true)
+    public List<EmployeeView> getAll() {
+        writeBehind.awaitFlushed();
+        return employeeStore.findAllViews();
+    }
+
+    /**
+     * Filtered and sorted listing; without filters or sort this is the plain listing above.
+     */
+    @Timed(value = SERVICE_TIMER, histogram = true)
+    public List<EmployeeView> getAll(EmployeeFilter filter, Sort sort) {
+        if (filter.isEmpty() && sort.isUnsorted()) {
+            return getAll();
+        }
+        writeBehind.awaitFlushed();
+        return employeeStore.findViews(filter, checked(sort));
+    }
+
+    /**
+     * Keyset pagination on {@code id}: every page reads {@code size + 1} rows starting at the cursor,
+     * so the cost does not depend on how deep into the table the cursor is.
+     */
+    @Timed(value = SERVICE_TIMER, histogram = true)
+    public CursorPage<EmployeeView> getPage(Long after, int size, boolean withTotal) {
+        return getPage(after, size, withTotal, EmployeeFilter.NONE);
+    }
+
+    @Timed(value = SERVICE_TIMER, histogram = true)
+    public CursorPage<EmployeeView> getPage(Long after, int size, boolean withTotal, EmployeeFilter filter) {
+        writeBehind.awaitFlushed();
+        var rows = employeeStore.findViewsAfter(filter, after, size + 1);
+        return cursorPage(rows, size, withTotal ? employeeStore.count(filter) : null);
     }
 
-    public List<Employee> getAll() {
-        return employeeRepository.findAll();
+    private static CursorPage<EmployeeView> cursorPage(List<EmployeeView> rows, int size, Long totalCount) {
+        var hasNext = rows.size() > size;
+        var content = hasNext ? rows.subList(0, size) : rows;
+        var nextCursor = hasNext ? content.get(content.size() - 1).id() : null;
+        return new CursorPage<>(content, nextCursor, totalCount);
     }
 
+    /**
+     * Feeds every employee to {@code sink} in id order without holding the whole table in memory.
+     */
+    public void exportAll(Consumer<EmployeeView> sink) {
+        writeBehind.awaitFlushed();
+        employeeStore.exportAll(sink);
+    }
+
+    @Timed(value = SERVICE_TIMER, histogram = true)
     public Optional<Employee> getById(Long id) {
-        return employeeRepository.findById(id);
+        writeBehind.awaitFlushed(id);
+        return employeeStore.findById(id);
+    }
+
+    @Timed(value = SERVICE_TIMER, histogram = true)
+    public List<EmployeeView> getSubordinates(Long supervisorId) {
+        writeBehind.awaitFlushed();
+        return employeeStore.findBySupervisorId(supervisorId);
     }
 
+    /**
+     * Returns {@code id} and everyone below it down to {@code depth} levels, ordered by depth.
+     */
+    @Timed(value = SERVICE_TIMER, histogram = true)
+    public List<SubtreeNode> getSubtree(Long id, int depth) {
+        writeBehind.awaitFlushed();
+        var nodes = employeeStore.findSubtree(id, depth);
+        if (nodes.isEmpty()) {
+            throw new ResourceNotFoundException("Employee not found");
+        }
+        return nodes;
+    }
+
+    /**
+     * Ranked type-ahead search over names and positions, answered from the in-memory {@link SearchIndex}.
+     */
+    @Timed(value = SERVICE_TIMER, histogram = true)
+    public CursorPage<EmployeeView> search(String query, int offset, int size) {
+        writeBehind.awaitFlushed();
+        return searchIndex.search(query, offset, size);
+    }
+
+    /**
+     * Returns the management chain above {@code id}, top first, read from its path with one lookup.
+     */
+    @Timed(value = SERVICE_TIMER, histogram = true)
+    public List<EmployeeView> getChain(Long id) {
+        var ancestorIds = getById(id).orElseThrow(() -> new ResourceNotFoundException("Employee not found"))
+                .ancestorIds();
+        if (ancestorIds.isEmpty()) {
+            return List.of();
+        }
+        var views = new HashMap<Long, EmployeeView>();
+        employeeStore.findViewsByIdIn(ancestorIds).forEach(view -> views.put(view.id(), view));
+        return ancestorIds.stream().map(views::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Streams committed changes to {@code subscriber}, resuming after position {@code since} when given.
+     */
+    public void subscribeToChanges(String since, EmployeeChangeFeed.Subscriber subscriber) {
+        changeFeed.subscribe(since, subscriber);
+    }
+
+    public void unsubscribeFromChanges(EmployeeChangeFeed.Subscriber subscriber) {
+        changeFeed.unsubscribe(subscriber);
+    }
+
+    /**
+     * Delta sync: upserts and deletions with a change sequence after {@code since}, oldest first, {@code size} at a time.
+     * Each side reads at most {@code size + 1} rows in change sequence order, so the cost follows the number of
+     * changes rather than the size of the table. Only sequences that can no longer commit late are read.
+     */
+    @Timed(value = SERVICE_TIMER, histogram = true)
+    public EmployeeChanges getChanges(long since, int size) {
+        writeBehind.awaitFlushed();
+        var upTo = changeSequence.visibleUpTo();
+        var after = Math.max(since, 0L);
+        var upserts = employeeStore.findUpsertsBetween(after, upTo, size + 1);
+        var deletions = employeeStore.findDeletionsBetween(after, upTo, size + 1);
+
+        var changes = new ArrayList<EmployeeChange>(size + 1);
+        for (int u = 0, d = 0; changes.size() <= size && (u < upserts.size() || d < deletions.size()); ) {
+            if (d == deletions.size() || u < upserts.size() && upserts.get(u).sequence() < deletions.get(d).sequence()) {
+                changes.add(upserts.get(u++));
+            } else {
+                changes.add(deletions.get(d++));
+            }
+        }
+        var hasMore = changes.size() > size;
+        var content = hasMore ? changes.subList(0, size) : changes;
+        var cursor = hasMore ? content.get(size - 1).sequence() : Math.max(upTo, after);
+        return new EmployeeChanges(List.copyOf(content), cursor, hasMore);
+    }
+
+    /**
+     * Existence check used while parsing request bodies. Only positive answers are cached, so an id
+     * that shows up later is never reported missing; deleting an employee evicts its entry.
+     */
+    @Cacheable(cacheNames = EXISTING_EMPLOYEE_IDS, unless = "!#result")
+    public boolean exists(Long id) {
+        return employeeStore.existsById(id);
+    }
+
+    /**
+     * Returns an uninitialized reference that is enough to link a supervisor without loading its row.
+     */
+    public Employee getReference(Long id) {
+        return employeeStore.getReferenceById(id);
+    }
+
+    @Transactional
+    @CacheEvict(cacheNames = EXISTING_EMPLOYEE_IDS, key = "#id")
+    @Timed(value = SERVICE_TIMER, histogram = true)
     public void delete(Long id) {
-        employeeRepository.findById(id)
+        employeeStore.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Employee not found"));
 
-        var subordinates = employeeRepository.findBySupervisorId(id);
-        if (!subordinates.isEmpty()) {
+        if (hierarchyIndex.hasSubordinates(id)) {
             throw new SupervisorHasSubordinatesException("Cannot delete supervisor with subordinates. Reassign or remove subordinates first.");
         }
 
-        employeeRepository.deleteById(id);
+        try {
+            employeeStore.delete(id);
+        } catch (DataIntegrityViolationException e) {
+            // the index only holds committed moves; a subordinate added in this or an open transaction ends up here
+            throw new SupervisorHasSubordinatesException("Cannot delete supervisor with subordinates. Reassign or remove subordinates first.");
+        }
+        hierarchyIndex.remove(id);
+        searchIndex.remove(id);
+        changeFeed.deleted(id);
+        tableVersion.changed();
     }
 
-    public Optional<Employee> update(Long id, Map<String, String> employeeFieldsMap) {
-        var existingEmployee = employeeRepository.findById(id);
+    @Timed(value = SERVICE_TIMER, histogram = true)
+    public Optional<Employee> update(Long id, EmployeePatch patch) {
+        return update(id, patch, null);
+    }
+
+    /**
+     * Applies the update only if the stored version still equals {@code expectedVersion} (when given).
+     * A write that slips in between the check and the save is caught by the {@code @Version} column.
+     */
+    @Transactional
+    @Timed(value = SERVICE_TIMER, histogram = true)
+    public Optional<Employee> update(Long id, EmployeePatch patch, Long expectedVersion) {
+        if (expectedVersion != null && writeBehind.pendingPatch(id) != null) {
+            throw new PreconditionFailedException("Employee was modified since it was read");
+        }
+        // a queued older write must not land on top of this one
+        writeBehind.applyQueued(List.of(id));
+        var existingEmployee = employeeStore.findById(id);
 
         if (existingEmployee.isEmpty()) {
             return Optional.empty();
         }
 
         var employee = existingEmployee.get();
-        updateFirstName(employeeFieldsMap, employee);
-        updateLastName(employeeFieldsMap, employee);
-        updatePosition(employeeFieldsMap, employee);
-        updateSupervisor(employeeFieldsMap, employee);
-
-        employeeRepository.save(employee);
+        if (expectedVersion != null && !expectedVersion.equals(employee.getVersion())) {
+            throw new PreconditionFailedException("Employee was modified since it was read");
+        }
 
+        applyPatch(employee, patch);
         return Optional.of(employee);
     }
 
-    private void updateFirstName(Map<String, String> fields, Employee employee) {
-        if (fields.containsKey("firstName")) {
-            employee.setFirstName(fields.get("firstName"));
+    /**
+     * Applies {@code patches} in order in one transaction and fails as a whole if an employee or supervisor is missing.
+     * Every employee and supervisor involved is loaded with one lookup up front, so with JPA the patches find them in
+     * the persistence context; only a patch that moves an employee costs extra statements, to re-root its subtree.
+     */
+    @Transactional
+    @Timed(value = SERVICE_TIMER, histogram = true)
+    public List<EmployeeView> updateAll(List<EmployeePatch> patches) {
+        var ids = new HashSet<Long>();
+        var patchedIds = new HashSet<Long>();
+        for (var patch : patches) {
+            if (patch.id() == null) {
+                throw new InvalidQueryException("Every patch in a batch needs an id");
+            }
+            ids.add(patch.id());
+            patchedIds.add(patch.id());
+            if (patch.has(SUPERVISOR_ID) && patch.supervisorId() != null) {
+                ids.add(patch.supervisorId());
+            }
+        }
+        if (!ids.isEmpty()) {
+            employeeStore.findAllById(ids);
+            // only the patched employees: applyPatch publishes them, a supervisor that is merely referenced is not
+            writeBehind.applyQueued(patchedIds);
         }
+
+        var updated = new ArrayList<EmployeeView>(patches.size());
+        for (var patch : patches) {
+            var employee = employeeStore.findById(patch.id())
+                    .orElseThrow(() -> new ResourceNotFoundException("Employee not found"));
+            applyPatch(employee, patch);
+            updated.add(EmployeeView.from(employee));
+        }
+        return updated;
     }
 
-    private void updateLastName(Map<String, String> fields, Employee employee) {
-        if (fields.containsKey("lastName")) {
-            employee.setLastName(fields.get("lastName"));
+    private void applyPatch(Employee employee, EmployeePatch patch) {
+        var subordinatePath = employee.subordinatePath();
+        patch.applyFieldsTo(employee);
+        if (patch.has(SUPERVISOR_ID)) {
+            updateSupervisor(patch.supervisorId(), employee);
+        }
+
+        employeeStore.save(employee);
+        if (!subordinatePath.equals(employee.subordinatePath())) {
+            employeeStore.movePaths(subordinatePath, employee.subordinatePath());
         }
+        hierarchyIndex.put(employee.getId(), supervisorIdOf(employee));
+        var view = EmployeeView.from(employee);
+        searchIndex.put(view);
+        changeFeed.upserted(view);
+        tableVersion.changed();
+    }
+
+    /**
+     * Whether {@link #updateLater} may take this update: write-behind is enabled, the update is unconditional
+     * and it does not move the employee, which would have to rewrite the paths of the whole subtree.
+     */
+    public boolean canUpdateLater(EmployeePatch patch, Long expectedVersion) {
+        return writeBehind.isEnabled() && expectedVersion == null && !patch.has(SUPERVISOR_ID);
     }
 
-    private void updatePosition(Map<String, String> fields, Employee employee) {
-        if (fields.containsKey("position")) {
-            employee.setPosition(fields.get("position"));
+    /**
+     * Validates the update against the stored employee plus anything still queued for it, queues it on the
+     * {@link EmployeeWriteBehind} and returns the employee as it will be once written.
+     */
+    @Timed(value = SERVICE_TIMER, histogram = true)
+    public Optional<EmployeeView> updateLater(Long id, EmployeePatch patch) {
+        var existingEmployee = employeeStore.findById(id);
+        if (existingEmployee.isEmpty()) {
+            return Optional.empty();
+        }
+
+        // the stored entity stays untouched; the change is applied to a copy
+        var stored = existingEmployee.get();
+        var employee = new Employee();
+        employee.setId(stored.getId());
+        employee.setFirstName(stored.getFirstName());
+        employee.setLastName(stored.getLastName());
+        employee.setPosition(stored.getPosition());
+        employee.setSupervisor(stored.getSupervisor());
+        employee.setCreationDate(stored.getCreationDate());
+        var queued = writeBehind.pendingPatch(id);
+        if (queued != null) {
+            queued.applyFieldsTo(employee);
         }
+        patch.applyFieldsTo(employee);
+
+        var violations = validator.validate(employee);
+        if (!violations.isEmpty()) {
+            throw new ConstraintViolationException(violations);
+        }
+        writeBehind.enqueue(id, patch);
+        return Optional.of(EmployeeView.from(employee));
     }
 
-    private void updateSupervisor(Map<String, String> fields, Employee employee) {
-        if (fields.containsKey("supervisorId")) {
-            var supervisorIdStr = fields.get("supervisorId");
-            if (supervisorIdStr != null && !supervisorIdStr.isEmpty()) {
-                try {
-                    var supervisorId = Long.parseLong(supervisorIdStr);
-                    var supervisor = getById(supervisorId).orElseThrow(() -> new ResourceNotFoundException("Supervisor not found"));
-                    employee.setSupervisor(supervisor);
-                    validateSupervisor(employee);
-                } catch (NumberFormatException e) {
-                    throw new ResourceNotFoundException("Invalid supervisor ID format");
-                }
-            } else {
-                employee.setSupervisor(null);
-            }
+    /**
+     * With JPA the supervisor usually comes out of the persistence context or the second-level cache rather than a query.
+     */
+    private void updateSupervisor(Long supervisorId, Employee employee) {
+        if (supervisorId != null) {
+            var supervisor = employeeStore.findById(supervisorId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Supervisor not found"));
+            employee.setSupervisor(supervisor);
+            validateSupervisor(employee);
+        } else {
+            employee.setSupervisor(null);
         }
+        employee.setPath(Employee.pathBelow(employee.getSupervisor()));
     }
 
     private void validateSupervisor(Employee employee) {
-        Employee supervisor = employee.getSupervisor();
-        while (supervisor != null) {
-            if (supervisor.getId().equals(employee.getId())) {
-                throw new InfiniteRecursionException("Cannot assign supervisor that creates a cycle");
-            }
-            supervisor = supervisor.getSupervisor();
+        var supervisor = employee.getSupervisor();
+        if (employee.getId() == null || supervisor == null) {
+            return;
+        }
+        metrics.recordSupervisorChainDepth(supervisor.depth() + 1);
+        if (supervisor.getId().equals(employee.getId()) || supervisor.reportsTo(employee.getId())) {
+            throw new InfiniteRecursionException("Cannot assign supervisor that creates a cycle");
         }
     }
 
+    private static Long supervisorIdOf(Employee employee) {
+        return employee.getSupervisor() != null ? employee.getSupervisor().getId() : null;
+    }
+
+    /**
+     * Reassigns all {@code subordinateIds} with one lookup and one bulk write. Cycles are ruled out against the
+     * supervisor's path.
+     */
+    @Transactional
+    @Timed(value = SERVICE_TIMER, histogram = true)
     public Employee addSubordinates(Long supervisorId, List<Long> subordinateIds) {
-        var supervisor = employeeRepository.findById(supervisorId)
+        var supervisor = employeeStore.findById(supervisorId)
                 .orElseThrow(() -> new ResourceNotFoundException("Supervisor not found"));
 
-        for (Long subordinateId : subordinateIds) {
-            var subordinate = employeeRepository.findById(subordinateId)
-                    .orElseThrow(() -> new ResourceNotFoundException("Subordinate not found"));
-            subordinate.setSupervisor(supervisor);
-            validateSupervisor(subordinate);
-            employeeRepository.save(subordinate);
+        var ids = new HashSet<>(subordinateIds);
+        if (ids.isEmpty()) {
+            return supervisor;
+        }
+        var subordinates = employeeStore.findAllById(ids);
+        if (subordinates.size() != ids.size()) {
+            throw new ResourceNotFoundException("Subordinate not found");
+        }
+
+        if (ids.contains(supervisorId) || ids.stream().anyMatch(supervisor::reportsTo)) {
+            throw new InfiniteRecursionException("Cannot assign supervisor that creates a cycle");
         }
 
+        employeeStore.reassign(supervisor, subordinates);
+        ids.forEach(id -> hierarchyIndex.put(id, supervisorId));
+        searchIndex.moveUnder(ids, supervisorId);
+        subordinates.forEach(subordinate -> changeFeed.upserted(new EmployeeView(subordinate.getId(),
+                subordinate.getFirstName(), subordinate.getLastName(), subordinate.getPosition(), supervisorId,
+                subordinate.getCreationDate())));
+        tableVersion.changed();
+
         return supervisor;
     }
 
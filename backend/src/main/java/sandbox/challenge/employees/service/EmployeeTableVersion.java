@@ -0,0 +1,39 @@
+package sandbox.challenge.employees.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Change counter for the employee table as a whole, used as the ETag of list responses.
+ * The startup epoch is part of the tag so that a restart never hands out a tag seen before.
+ * <p>
+ * A write bumps the counter right away and, if it runs inside a transaction, once more when that transaction
+ * ends. A reader that captured the tag before querying can therefore only pair it with data that is as new
+ * or newer, and a tag handed out while the write was still uncommitted is never reused for the committed data.
+ */
+@Component
+public class EmployeeTableVersion {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong counter = new AtomicLong();
+
+    public String current() {
+        return epoch + "-" + counter.get();
+    }
+
+    public void changed() {
+        counter.incrementAndGet();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                counter.incrementAndGet();
+            }
+        });
+    }
+}
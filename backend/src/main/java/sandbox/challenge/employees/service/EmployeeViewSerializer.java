@@ -0,0 +1,98 @@
+package sandbox.challenge.employees.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import sandbox.challenge.employees.domain.EmployeeView;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Writes an {@link EmployeeView} field by field with pre-encoded field names, producing the same JSON as the
+ * annotated record without looking up a property writer per field.
+ */
+public class EmployeeViewSerializer extends StdSerializer<EmployeeView> {
+
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString FIRST_NAME = new SerializedString("firstName");
+    private static final SerializableString LAST_NAME = new SerializedString("lastName");
+    private static final SerializableString POSITION = new SerializedString("position");
+    private static final SerializableString SUPERVISOR_ID = new SerializedString("supervisorId");
+    private static final SerializableString CREATION_DATE = new SerializedString("creationDate");
+    private static final DateTimeFormatter CREATION_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    public EmployeeViewSerializer() {
+        super(EmployeeView.class);
+    }
+
+    @Override
+    public void serialize(EmployeeView view, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        write(gen, view, view.id(), view.firstName(), view.lastName(), view.position(), view.supervisorId(),
+                view.creationDate());
+    }
+
+    static void write(JsonGenerator gen, Object value, Long id, String firstName, String lastName, String position,
+                      Long supervisorId, LocalDateTime creationDate) throws IOException {
+        gen.writeStartObject(value);
+        gen.writeFieldName(ID);
+        writeNumber(gen, id);
+        gen.writeFieldName(FIRST_NAME);
+        gen.writeString(firstName);
+        gen.writeFieldName(LAST_NAME);
+        gen.writeString(lastName);
+        gen.writeFieldName(POSITION);
+        gen.writeString(position);
+        gen.writeFieldName(SUPERVISOR_ID);
+        writeNumber(gen, supervisorId);
+        gen.writeFieldName(CREATION_DATE);
+        writeCreationDate(gen, creationDate);
+        gen.writeEndObject();
+    }
+
+    /**
+     * Writes {@code yyyy-MM-dd'T'HH:mm:ss} digit by digit into a small buffer instead of going through the formatter,
+     * which builds several intermediate objects and a String per row.
+     */
+    private static void writeCreationDate(JsonGenerator gen, LocalDateTime date) throws IOException {
+        if (date == null) {
+            gen.writeNull();
+            return;
+        }
+        if (date.getYear() < 0 || date.getYear() > 9999) {
+            gen.writeString(CREATION_DATE_FORMAT.format(date));
+            return;
+        }
+        var chars = new char[19];
+        digits(chars, 0, date.getYear(), 4);
+        chars[4] = '-';
+        digits(chars, 5, date.getMonthValue(), 2);
+        chars[7] = '-';
+        digits(chars, 8, date.getDayOfMonth(), 2);
+        chars[10] = 'T';
+        digits(chars, 11, date.getHour(), 2);
+        chars[13] = ':';
+        digits(chars, 14, date.getMinute(), 2);
+        chars[16] = ':';
+        digits(chars, 17, date.getSecond(), 2);
+        gen.writeString(chars, 0, chars.length);
+    }
+
+    private static void digits(char[] chars, int offset, int value, int width) {
+        for (var i = offset + width - 1; i >= offset; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private static void writeNumber(JsonGenerator gen, Long value) throws IOException {
+        if (value != null) {
+            gen.writeNumber(value.longValue());
+        } else {
+            gen.writeNull();
+        }
+    }
+}
@@ -0,0 +1,449 @@
+package sandbox.challenge.employees.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import sandbox.challenge.employees.config.EmployeesProperties;
+import sandbox.challenge.employees.domain.EmployeePatch;
+import sandbox.challenge.employees.domain.EmployeeView;
+import sandbox.challenge.employees.exception.UpdatesNotAcceptedException;
+import sandbox.challenge.employees.exception.UpdatesPendingException;
+import sandbox.challenge.employees.repository.EmployeeStore;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Optional write-behind queue for PATCHes that only touch names and position. Accepted updates are coalesced
+ * per employee id, so a burst of edits to one employee becomes one UPDATE, and a background writer flushes
+ * them {@code batchSize} employees per transaction, where Hibernate sends the UPDATEs as one JDBC batch.
+ * <p>
+ * An update stays in the queue until the transaction that wrote it has committed. Reads call
+ * {@link #awaitFlushed()} before they open a transaction and wait for the writer if anything is still queued, so
+ * every client reads its own writes without running a statement of the writer's; a read that is still waiting after
+ * {@code readTimeout} is refused with {@link UpdatesPendingException}. A synchronous write calls
+ * {@link #applyQueued(Collection)} instead, which folds what is queued for its employees into its own transaction.
+ * <p>
+ * When a batch fails, its employees are retried one by one so the others still get written; an update that has
+ * failed {@code maxAttempts} times is logged and dropped. When the queue holds {@code capacity} employees, new ones
+ * wait for room and are refused with {@link UpdatesNotAcceptedException} after {@code offerTimeout}. On shutdown
+ * the queue stops accepting updates and is flushed before the persistence unit closes.
+ */
+@Component
+public class EmployeeWriteBehind {
+
+    private static final Logger log = LoggerFactory.getLogger(EmployeeWriteBehind.class);
+
+    private final EmployeeStore employeeStore;
+    private final SearchIndex searchIndex;
+    private final EmployeeTableVersion tableVersion;
+    private final EmployeeChangeFeed changeFeed;
+    private final EmployeesProperties.WriteBehind settings;
+    private final TransactionTemplate transactionTemplate;
+    private final ScheduledExecutorService writer;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final Condition written = lock.newCondition();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final LinkedHashMap<Long, Queued> pending = new LinkedHashMap<>();
+    // guarded by lock; numbers every enqueue, so a barrier knows which updates were queued before it
+    private long stamp;
+    // guarded by lock; set once the last flush on shutdown is done, so no barrier waits for a writer that is gone
+    private boolean closed;
+    private volatile boolean accepting;
+
+    @Autowired
+    public EmployeeWriteBehind(EmployeeStore employeeStore, PlatformTransactionManager transactionManager,
+                               SearchIndex searchIndex, EmployeeTableVersion tableVersion, EmployeeChangeFeed changeFeed,
+                               EmployeesProperties properties) {
+        this(employeeStore, transactionManager, searchIndex, tableVersion, changeFeed, properties.writeBehind());
+    }
+
+    public EmployeeWriteBehind(EmployeeStore employeeStore, PlatformTransactionManager transactionManager,
+                               SearchIndex searchIndex, EmployeeTableVersion tableVersion, EmployeeChangeFeed changeFeed,
+                               EmployeesProperties.WriteBehind settings) {
+        this.employeeStore = employeeStore;
+        this.searchIndex = searchIndex;
+        this.tableVersion = tableVersion;
+        this.changeFeed = changeFeed;
+        this.settings = settings;
+        this.accepting = settings.enabled();
+        if (!settings.enabled()) {
+            this.transactionTemplate = null;
+            this.writer = null;
+            return;
+        }
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "employee-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        var interval = settings.flushInterval().toMillis();
+        writer.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isEnabled() {
+        return accepting;
+    }
+
+    /**
+     * The changes queued for {@code id} that are not written yet, merged into one patch, or {@code null} if there are none.
+     */
+    public EmployeePatch pendingPatch(Long id) {
+        if (!settings.enabled()) {
+            return null;
+        }
+        lock.lock();
+        try {
+            var queued = pending.get(id);
+            return queued == null ? null : queued.patch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Queues an already validated {@code patch} for {@code id}, merged over anything still queued for it.
+     * Waits for room if {@code id} is not queued yet and the queue is full.
+     */
+    public void enqueue(Long id, EmployeePatch patch) {
+        var wakeWriter = false;
+        lock.lock();
+        try {
+            var remaining = settings.offerTimeout().toNanos();
+            while (accepting && !pending.containsKey(id) && pending.size() >= settings.capacity()) {
+                if (remaining <= 0) {
+                    throw new UpdatesNotAcceptedException("Too many updates are waiting to be written. Retry shortly.");
+                }
+                remaining = notFull.awaitNanos(remaining);
+            }
+            if (!accepting) {
+                throw new UpdatesNotAcceptedException("Updates are not accepted while the service shuts down.");
+            }
+            var queued = pending.get(id);
+            if (queued == null) {
+                pending.put(id, new Queued(patch, ++stamp));
+            } else {
+                queued.patch = queued.patch.mergedWith(patch);
+                stamp++;
+            }
+            wakeWriter = pending.size() == settings.batchSize();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UpdatesNotAcceptedException("Interrupted while waiting for room in the update queue.");
+        } finally {
+            lock.unlock();
+        }
+        tableVersion.changed();
+        if (wakeWriter) {
+            requestFlush();
+        }
+    }
+
+    /**
+     * Read barrier for a single employee: returns once nothing queued for {@code id} so far is left unwritten.
+     */
+    public void awaitFlushed(Long id) {
+        if (settings.enabled()) {
+            awaitWritten(Set.of(id));
+        }
+    }
+
+    /**
+     * Read barrier for the whole table: returns once every update queued so far has been written.
+     */
+    public void awaitFlushed() {
+        if (settings.enabled()) {
+            awaitWritten(null);
+        }
+    }
+
+    /**
+     * Waits for the writer rather than writing on the caller's thread, so a read neither takes a second
+     * connection nor spends its statement budget on someone else's updates. Updates given up on count as written.
+     * The wait is bounded by {@code readTimeout}: a reader that already holds a connection must not wait for a
+     * writer that is itself waiting for one.
+     */
+    private void awaitWritten(Set<Long> ids) {
+        lock.lock();
+        try {
+            var barrier = stamp;
+            if (!isUnwritten(ids, barrier)) {
+                return;
+            }
+            requestFlush();
+            var remaining = settings.readTimeout().toNanos();
+            var interrupted = false;
+            while (!closed && isUnwritten(ids, barrier)) {
+                if (remaining <= 0) {
+                    throw new UpdatesPendingException("Queued updates are still being written. Retry shortly.");
+                }
+                try {
+                    remaining = written.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isUnwritten(Set<Long> ids, long barrier) {
+        if (ids == null) {
+            return pending.values().stream().anyMatch(queued -> queued.since <= barrier);
+        }
+        return ids.stream().map(pending::get).anyMatch(queued -> queued != null && queued.since <= barrier);
+    }
+
+    /**
+     * Write barrier for a transaction about to change {@code ids}: applies what is queued for them to the employees
+     * as that transaction sees them, and drops it from the queue once the transaction commits; on rollback it stays
+     * queued. Employees are looked up one by one, so ones the caller has already loaded cost no statement. Returns
+     * whether anything was queued. Nothing is published: the caller goes on to write these employees and publishes
+     * them as it does.
+     */
+    public boolean applyQueued(Collection<Long> ids) {
+        if (!settings.enabled()) {
+            return false;
+        }
+        var batch = new LinkedHashMap<Long, EmployeePatch>();
+        long barrier;
+        lock.lock();
+        try {
+            for (var id : ids) {
+                var queued = pending.get(id);
+                if (queued != null) {
+                    batch.put(id, queued.patch);
+                }
+            }
+            barrier = stamp;
+        } finally {
+            lock.unlock();
+        }
+        if (batch.isEmpty()) {
+            return false;
+        }
+        batch.forEach((id, patch) -> employeeStore.findById(id).ifPresent(employee -> {
+            patch.applyFieldsTo(employee);
+            employeeStore.save(employee);
+        }));
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            complete(batch, barrier);
+        } else {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    complete(batch, barrier);
+                }
+            });
+        }
+        return true;
+    }
+
+    private void requestFlush() {
+        try {
+            writer.execute(this::flushQuietly);
+        } catch (RejectedExecutionException e) {
+            // shutting down; close() flushes what is left
+        }
+    }
+
+    /**
+     * Writes everything queued so far, trying every employee once. Only one flush runs at a time; a caller that
+     * arrives during another flush waits for it and then writes whatever is left.
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            var attempted = new HashSet<Long>();
+            for (var batch = nextBatch(attempted); !batch.patches().isEmpty(); batch = nextBatch(attempted)) {
+                try {
+                    write(batch.patches());
+                    complete(batch.patches(), batch.stamp());
+                } catch (RuntimeException e) {
+                    writeOneByOne(batch, e);
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Writing queued employee updates failed; retrying on the next flush", e);
+        }
+    }
+
+    /**
+     * Retries a failed batch one employee at a time, so one update that cannot be written does not hold up the rest.
+     */
+    private void writeOneByOne(Batch batch, RuntimeException batchFailure) {
+        if (batch.patches().size() == 1) {
+            batch.patches().forEach((id, patch) -> failed(id, patch, batchFailure));
+            return;
+        }
+        log.debug("Writing a batch of {} queued employee updates failed; retrying them one by one",
+                batch.patches().size(), batchFailure);
+        batch.patches().forEach((id, patch) -> {
+            var single = Map.of(id, patch);
+            try {
+                write(single);
+                complete(single, batch.stamp());
+            } catch (RuntimeException e) {
+                failed(id, patch, e);
+            }
+        });
+    }
+
+    private Batch nextBatch(Set<Long> attempted) {
+        lock.lock();
+        try {
+            var batch = new LinkedHashMap<Long, EmployeePatch>();
+            for (var entry : pending.entrySet()) {
+                if (batch.size() == settings.batchSize()) {
+                    break;
+                }
+                if (attempted.add(entry.getKey())) {
+                    batch.put(entry.getKey(), entry.getValue().patch);
+                }
+            }
+            return new Batch(batch, stamp);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void write(Map<Long, EmployeePatch> batch) {
+        transactionTemplate.executeWithoutResult(status -> {
+            // employees deleted in the meantime are simply not found
+            var employees = employeeStore.findAllById(batch.keySet());
+            employees.forEach(employee -> batch.get(employee.getId()).applyFieldsTo(employee));
+            // JPA would flush the changed entities anyway; a store without dirty checking needs the explicit save
+            employeeStore.saveAll(employees);
+            var views = new ArrayList<EmployeeView>(employees.size());
+            employees.forEach(employee -> views.add(EmployeeView.from(employee)));
+            views.forEach(view -> {
+                searchIndex.put(view);
+                changeFeed.upserted(view);
+            });
+            tableVersion.changed();
+        });
+    }
+
+    /**
+     * Drops the written entries, unless a newer update for the same employee was merged in while they were written;
+     * such an entry now only holds back barriers that came after {@code stamp}.
+     */
+    private void complete(Map<Long, EmployeePatch> batch, long stamp) {
+        lock.lock();
+        try {
+            batch.forEach((id, patch) -> {
+                var queued = pending.get(id);
+                if (queued == null) {
+                    return;
+                }
+                if (queued.patch == patch) {
+                    pending.remove(id);
+                } else {
+                    queued.since = Math.max(queued.since, stamp + 1);
+                    queued.failures = 0;
+                }
+            });
+            notFull.signalAll();
+            written.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void failed(Long id, EmployeePatch patch, RuntimeException e) {
+        lock.lock();
+        try {
+            var queued = pending.get(id);
+            if (queued == null || queued.patch != patch) {
+                log.warn("Writing the queued update to employee {} failed; retrying on the next flush", id, e);
+                return;
+            }
+            if (++queued.failures < settings.maxAttempts()) {
+                log.warn("Writing the queued update to employee {} failed {} times; retrying on the next flush",
+                        id, queued.failures, e);
+                return;
+            }
+            log.error("Dropping the queued update {} to employee {} after {} failed attempts", patch, id,
+                    queued.failures, e);
+            pending.remove(id);
+            notFull.signalAll();
+            written.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        if (!settings.enabled()) {
+            return;
+        }
+        lock.lock();
+        try {
+            accepting = false;
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        writer.shutdown();
+        writer.awaitTermination(settings.offerTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        flush();
+        lock.lock();
+        try {
+            closed = true;
+            written.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * What is queued for one employee. {@code since} is the stamp of the oldest update in it not yet written.
+     * Guarded by the lock.
+     */
+    private static final class Queued {
+
+        private EmployeePatch patch;
+        private long since;
+        private int failures;
+
+        private Queued(EmployeePatch patch, long since) {
+            this.patch = patch;
+            this.since = since;
+        }
+    }
+
+    private record Batch(Map<Long, EmployeePatch> patches, long stamp) {
+    }
+}
@@ -0,0 +1,171 @@
+package sandbox.challenge.employees.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import sandbox.challenge.employees.repository.EmployeeStore;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory subordinate counts, stored as primitive arrays indexed by employee id ({@code parents[id]} is the
+ * supervisor id, {@code 0} for none). Answers "has subordinates" in O(1), so deleting an employee does not need
+ * a query for it; "is X above Y" is answered by {@code Employee.reportsTo} from the materialized path.
+ * <p>
+ * The index is loaded from the database on first use and kept in sync by {@link EmployeeService}. Changes are
+ * applied once their transaction commits, so a reload while a transaction is open cannot lose its change.
+ */
+@Component
+public class HierarchyIndex {
+
+    private static final long NONE = 0L;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final EmployeeStore employeeStore;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private long[] parents = new long[INITIAL_CAPACITY];
+    private int[] subordinateCounts = new int[INITIAL_CAPACITY];
+    private final BitSet present = new BitSet();
+    private volatile boolean loaded;
+
+    public HierarchyIndex(EmployeeStore employeeStore) {
+        this.employeeStore = employeeStore;
+    }
+
+    public boolean hasSubordinates(long id) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            return id > 0 && id < subordinateCounts.length && subordinateCounts[(int) id] > 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void put(long id, Long supervisorId) {
+        var supervisor = supervisorId == null ? NONE : supervisorId;
+        // checked up front, so an id the arrays cannot hold fails the write rather than the commit
+        slot(id);
+        if (supervisor != NONE) {
+            slot(supervisor);
+        }
+        afterCommit(() -> link(id, supervisor));
+    }
+
+    public void remove(long id) {
+        var slot = slot(id);
+        afterCommit(() -> {
+            if (present.get(slot)) {
+                link(id, NONE);
+                present.clear(slot);
+            }
+        });
+    }
+
+    public void invalidate() {
+        loaded = false;
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                return;
+            }
+            parents = new long[INITIAL_CAPACITY];
+            subordinateCounts = new int[INITIAL_CAPACITY];
+            present.clear();
+            for (var edge : employeeStore.findHierarchyEdges()) {
+                link(edge.id(), edge.supervisorId() == null ? NONE : edge.supervisorId());
+            }
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        invalidateUnlessCommitted();
+    }
+
+    private void link(long id, long supervisorId) {
+        var slot = slot(id);
+        ensureCapacity(Math.max(slot, supervisorId == NONE ? 0 : slot(supervisorId)));
+        var previous = parents[slot];
+        if (previous != NONE) {
+            subordinateCounts[(int) previous]--;
+        }
+        parents[slot] = supervisorId;
+        if (supervisorId != NONE) {
+            subordinateCounts[(int) supervisorId]++;
+        }
+        present.set(slot);
+    }
+
+    private void ensureCapacity(int slot) {
+        if (slot < parents.length) {
+            return;
+        }
+        var capacity = Math.max(parents.length * 2, slot + 1);
+        parents = Arrays.copyOf(parents, capacity);
+        subordinateCounts = Arrays.copyOf(subordinateCounts, capacity);
+    }
+
+    private static int slot(long id) {
+        if (id <= 0 || id >= Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Employee id out of indexable range: " + id);
+        }
+        return (int) id;
+    }
+
+    /**
+     * Applies {@code change} once the current transaction commits, so a rolled-back write is never seen. If the
+     * index is not loaded by then, the reload reads the change from the database; it holds the write lock while it
+     * reads, so a commit during it is applied right after it.
+     */
+    private void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            ensureLoaded();
+            applyIfLoaded(change);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                applyIfLoaded(change);
+            }
+        });
+    }
+
+    private void applyIfLoaded(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                change.run();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * A reload inside a transaction may have read that transaction's own writes, so it is dropped again if the
+     * transaction does not commit.
+     */
+    private void invalidateUnlessCommitted() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    invalidate();
+                }
+            }
+        });
+    }
+}
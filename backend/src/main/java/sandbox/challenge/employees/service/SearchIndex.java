@@ -0,0 +1,280 @@
+package sandbox.challenge.employees.service;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import sandbox.challenge.employees.domain.CursorPage;
+import sandbox.challenge.employees.domain.EmployeeView;
+import sandbox.challenge.employees.repository.EmployeeStore;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory type-ahead index over first name, last name and position. Each field is split into lower-cased
+ * terms kept in a sorted dictionary, so a query token is a prefix range over that dictionary rather than a scan
+ * of every employee. Results come from the indexed {@link EmployeeView}s without touching the database.
+ * <p>
+ * Every query token has to match some term of an employee. A token scores higher on a name than on the
+ * position, and higher on a whole term than on a prefix; ties are broken by last name, first name and id.
+ * <p>
+ * Like {@link HierarchyIndex}, it is loaded from the database (here eagerly once the application is ready) and
+ * kept in sync by {@link EmployeeService}, whose changes are applied only once their transaction commits.
+ */
+@Component
+public class SearchIndex {
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int FIRST_NAME = 1;
+    private static final int LAST_NAME = 2;
+    private static final int POSITION = 4;
+
+    private static final Comparator<Hit> RANKING = Comparator.comparingInt(Hit::score).reversed()
+            .thenComparing(hit -> hit.view().lastName(), Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(hit -> hit.view().firstName(), Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(hit -> hit.view().id());
+
+    private final EmployeeStore employeeStore;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, EmployeeView> documents = new HashMap<>();
+    private final TreeMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    private volatile boolean loaded;
+
+    public SearchIndex(EmployeeStore employeeStore) {
+        this.employeeStore = employeeStore;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        ensureLoaded();
+    }
+
+    /**
+     * Returns {@code size} matches for {@code query} starting at rank {@code offset}. {@code nextCursor}
+     * is the offset of the next page and {@code totalCount} the number of matches.
+     */
+    public CursorPage<EmployeeView> search(String query, int offset, int size) {
+        var tokens = terms(query);
+        if (tokens.isEmpty()) {
+            return new CursorPage<>(List.of(), null, 0L);
+        }
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            Map<Long, Integer> scores = null;
+            for (var token : tokens) {
+                var tokenScores = score(token);
+                scores = scores == null ? tokenScores : intersect(scores, tokenScores);
+                if (scores.isEmpty()) {
+                    break;
+                }
+            }
+            return page(scores, offset, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void put(EmployeeView view) {
+        afterCommit(() -> {
+            unindex(view.id());
+            index(view);
+        });
+    }
+
+    /**
+     * Records a bulk supervisor change; names and positions, and so the terms, stay the same.
+     */
+    public void moveUnder(Collection<Long> ids, Long supervisorId) {
+        afterCommit(() -> {
+            for (var id : ids) {
+                documents.computeIfPresent(id, (key, view) -> new EmployeeView(view.id(), view.firstName(),
+                        view.lastName(), view.position(), supervisorId, view.creationDate()));
+            }
+        });
+    }
+
+    public void remove(long id) {
+        afterCommit(() -> unindex(id));
+    }
+
+    public void invalidate() {
+        loaded = false;
+    }
+
+    private Map<Long, Integer> score(String token) {
+        var scores = new HashMap<Long, Integer>();
+        var matching = postings.subMap(token, true, token + Character.MAX_VALUE, true);
+        for (var entry : matching.entrySet()) {
+            var exact = entry.getKey().equals(token);
+            for (var posting : entry.getValue().entrySet()) {
+                var fields = posting.getValue();
+                var score = ((fields & (FIRST_NAME | LAST_NAME)) != 0 ? 3 : 1) * (exact ? 2 : 1);
+                scores.merge(posting.getKey(), score, Math::max);
+            }
+        }
+        return scores;
+    }
+
+    private static Map<Long, Integer> intersect(Map<Long, Integer> left, Map<Long, Integer> right) {
+        var smaller = left.size() <= right.size() ? left : right;
+        var larger = smaller == left ? right : left;
+        var result = new HashMap<Long, Integer>();
+        smaller.forEach((id, score) -> {
+            var other = larger.get(id);
+            if (other != null) {
+                result.put(id, score + other);
+            }
+        });
+        return result;
+    }
+
+    private CursorPage<EmployeeView> page(Map<Long, Integer> scores, int offset, int size) {
+        var total = scores.size();
+        if (offset >= total) {
+            return new CursorPage<>(List.of(), null, (long) total);
+        }
+        // in long, so a huge offset cannot overflow into a negative bound
+        var wanted = (int) Math.min((long) offset + size, total);
+        // keep only the best offset + size hits; the head of the queue is the worst of them
+        var best = new PriorityQueue<>(wanted, RANKING.reversed());
+        scores.forEach((id, score) -> {
+            var hit = new Hit(documents.get(id), score);
+            if (best.size() < wanted) {
+                best.add(hit);
+            } else if (RANKING.compare(hit, best.peek()) < 0) {
+                best.poll();
+                best.add(hit);
+            }
+        });
+        var ranked = new ArrayList<>(best);
+        ranked.sort(RANKING);
+        var content = ranked.subList(offset, ranked.size()).stream().map(Hit::view).toList();
+        var nextCursor = wanted < total ? (long) wanted : null;
+        return new CursorPage<>(content, nextCursor, (long) total);
+    }
+
+    private void index(EmployeeView view) {
+        documents.put(view.id(), view);
+        addTerms(view.id(), view.firstName(), FIRST_NAME);
+        addTerms(view.id(), view.lastName(), LAST_NAME);
+        addTerms(view.id(), view.position(), POSITION);
+    }
+
+    private void addTerms(long id, String text, int field) {
+        for (var term : terms(text)) {
+            postings.computeIfAbsent(term, key -> new HashMap<>(4)).merge(id, field, (a, b) -> a | b);
+        }
+    }
+
+    private void unindex(long id) {
+        var previous = documents.remove(id);
+        if (previous == null) {
+            return;
+        }
+        for (var text : Arrays.asList(previous.firstName(), previous.lastName(), previous.position())) {
+            for (var term : terms(text)) {
+                var ids = postings.get(term);
+                if (ids != null) {
+                    ids.remove(id);
+                    if (ids.isEmpty()) {
+                        postings.remove(term);
+                    }
+                }
+            }
+        }
+    }
+
+    private static List<String> terms(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(SEPARATORS.split(text.toLowerCase(Locale.ROOT)))
+                .filter(term -> !term.isEmpty())
+                .distinct()
+                .toList();
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                return;
+            }
+            documents.clear();
+            postings.clear();
+            employeeStore.findAllViews().forEach(this::index);
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        invalidateUnlessCommitted();
+    }
+
+    /**
+     * Applies {@code change} once the current transaction commits, so readers never see a write that may still roll
+     * back. If the index is not loaded by then, the change is left to the reload, which reads it from the database;
+     * the reload holds the write lock while it reads, so a commit during it is applied right after it.
+     */
+    private void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            ensureLoaded();
+            applyIfLoaded(change);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                applyIfLoaded(change);
+            }
+        });
+    }
+
+    private void applyIfLoaded(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                change.run();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * A reload inside a transaction may have read that transaction's own writes, so it is dropped again if the
+     * transaction does not commit.
+     */
+    private void invalidateUnlessCommitted() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    invalidate();
+                }
+            }
+        });
+    }
+
+    private record Hit(EmployeeView view, int score) {
+    }
+}
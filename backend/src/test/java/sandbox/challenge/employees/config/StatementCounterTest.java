@@ -0,0 +1,44 @@
+package sandbox.challenge.employees.config;
+
+import org.junit.jupiter.api.Test;
+import sandbox.challenge.employees.exception.QueryBudgetExceededException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StatementCounterTest {
+
+    private final StatementCounter statementCounter = new StatementCounter();
+
+    @Test
+    void countsOnlyInsideAWindow() {
+        statementCounter.inspect("select 1");
+
+        statementCounter.start(10, false);
+        statementCounter.inspect("select 1");
+        statementCounter.inspect("select 2");
+
+        assertThat(statementCounter.stop()).isEqualTo(2);
+        assertThat(statementCounter.current()).isZero();
+    }
+
+    @Test
+    void logModeLetsStatementsOverBudgetThrough() {
+        statementCounter.start(1, false);
+
+        assertThat(statementCounter.inspect("select 1")).isEqualTo("select 1");
+        assertThat(statementCounter.inspect("select 2")).isEqualTo("select 2");
+        assertThat(statementCounter.stop()).isEqualTo(2);
+    }
+
+    @Test
+    void failModeRefusesTheFirstStatementOverBudget() {
+        statementCounter.start(1, true);
+        statementCounter.inspect("select 1");
+
+        assertThatThrownBy(() -> statementCounter.inspect("select 2"))
+                .isInstanceOf(QueryBudgetExceededException.class)
+                .hasMessage("Request exceeded its budget of 1 SQL statements");
+        statementCounter.stop();
+    }
+}
@@ -0,0 +1,154 @@
+package sandbox.challenge.employees.controller;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import sandbox.challenge.employees.repository.ColumnarEmployeeStore;
+import sandbox.challenge.employees.repository.EmployeeStore;
+import sandbox.challenge.employees.service.EmployeeChangeSequence;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The API running on {@link ColumnarEmployeeStore}; every test rolls back, which the store has to undo.
+ */
+@SpringBootTest(properties = "employees.store.type=columnar")
+@AutoConfigureMockMvc
+@Transactional
+class ColumnarStoreControllerTest {
+
+    @TempDir
+    private static Path directory;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EmployeeStore employeeStore;
+
+    @Autowired
+    private EmployeeChangeSequence changeSequence;
+
+    @DynamicPropertySource
+    static void walPath(DynamicPropertyRegistry registry) {
+        registry.add("employees.store.wal-path", () -> directory.resolve("employees.wal").toString());
+    }
+
+    @Test
+    void testStoreIsSelectedByConfiguration() {
+        assertThat(employeeStore).isInstanceOf(ColumnarEmployeeStore.class);
+    }
+
+    @Test
+    void testHierarchyEndpointsFollowMoves() throws Exception {
+        var cto = createEmployee("James", "Gosling", "CTO", null);
+        var vp = createEmployee("Guy", "Steele", "VP", null);
+        var lead = createEmployee("Doug", "Lea", "Lead", cto);
+        var developer = createEmployee("Josh", "Bloch", "Developer", lead);
+
+        mockMvc.perform(get("/api/employees/{id}/chain", developer))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id").value(contains(cto, lead)));
+
+        mockMvc.perform(post("/api/employees/{id}/add-subordinates", vp)
+                        .contentType(APPLICATION_JSON)
+                        .content("[" + lead + "]"))
+                .andExpect(status().isOk());
+        mockMvc.perform(patch("/api/employees/{id}", vp)
+                        .contentType(APPLICATION_JSON)
+                        .content("{\"supervisorId\": " + cto + "}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/employees/{id}/chain", developer))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id").value(contains(cto, vp, lead)));
+        mockMvc.perform(get("/api/employees/{id}/subtree", cto).param("depth", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id").value(contains(cto, vp, lead)));
+        mockMvc.perform(get("/api/employees").param("position", "Developer"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id").value(contains(developer)));
+
+        mockMvc.perform(patch("/api/employees/{id}", lead)
+                        .contentType(APPLICATION_JSON)
+                        .content("{\"supervisorId\": " + developer + "}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(delete("/api/employees/{id}", lead))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testPageTotalCountsOnlyTheSupervisorsSubordinates() throws Exception {
+        var cto = createEmployee("James", "Gosling", "CTO", null);
+        var lead = createEmployee("Doug", "Lea", "Lead", cto);
+        createEmployee("Josh", "Bloch", "Developer", lead);
+        createEmployee("Guy", "Steele", "Developer", lead);
+        createEmployee("Brian", "Goetz", "Developer", cto);
+
+        mockMvc.perform(get("/api/employees")
+                        .param("supervisorId", String.valueOf(lead))
+                        .param("size", "1")
+                        .param("withTotal", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.totalCount").value(2));
+        mockMvc.perform(get("/api/employees")
+                        .param("supervisorId", String.valueOf(cto))
+                        .param("position", "Developer")
+                        .param("size", "10")
+                        .param("withTotal", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalCount").value(1));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void testChangesReturnsUpsertsAndDeletionsAfterTheCursor() throws Exception {
+        var since = changeSequence.visibleUpTo();
+        var kept = createEmployee("Grace", "Hopper", "Engineer", null);
+        var removed = createEmployee("Alan", "Turing", "Engineer", null);
+        try {
+            mockMvc.perform(patch("/api/employees/{id}", kept)
+                            .contentType(APPLICATION_JSON)
+                            .content("{\"position\": \"Rear Admiral\"}"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.position").value("Rear Admiral"));
+            mockMvc.perform(delete("/api/employees/{id}", removed))
+                    .andExpect(status().isNoContent());
+
+            mockMvc.perform(get("/api/employees/changes").param("since", String.valueOf(since)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.changes[*].type").value(contains("UPSERT", "DELETE")))
+                    .andExpect(jsonPath("$.changes[0].employee.position").value("Rear Admiral"))
+                    .andExpect(jsonPath("$.changes[1].id").value(removed));
+        } finally {
+            employeeStore.delete((long) kept);
+        }
+    }
+
+    private int createEmployee(String firstName, String lastName, String position, Integer supervisorId) throws Exception {
+        var body = String.format("{\"firstName\": \"%s\", \"lastName\": \"%s\", \"position\": \"%s\", \"supervisorId\": %s}",
+                firstName, lastName, position, supervisorId);
+        return JsonPath.read(mockMvc.perform(post("/api/employees").contentType(APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(), "$.id");
+    }
+}
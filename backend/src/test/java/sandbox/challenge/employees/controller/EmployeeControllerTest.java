@@ -1,21 +1,60 @@
 package sandbox.challenge.employees.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.jayway.jsonpath.JsonPath;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import sandbox.challenge.employees.config.StatementCountInterceptor;
+import sandbox.challenge.employees.config.StatementCounter;
 import sandbox.challenge.employees.domain.Employee;
 import sandbox.challenge.employees.repository.EmployeeRepository;
+import sandbox.challenge.employees.service.EmployeeChangeSequence;
+import sandbox.challenge.employees.service.EmployeeService;
+import sandbox.challenge.employees.service.SearchIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static sandbox.challenge.employees.controller.StatementCountMatchers.statementsAtMost;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.http.HttpHeaders.ACCEPT;
+import static org.springframework.http.HttpHeaders.ETAG;
+import static org.springframework.http.HttpHeaders.IF_MATCH;
+import static org.springframework.http.HttpHeaders.IF_NONE_MATCH;
+import static org.springframework.http.HttpHeaders.VARY;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
+import static org.springframework.http.MediaType.APPLICATION_CBOR;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static sandbox.challenge.employees.config.CacheConfig.EXISTING_EMPLOYEE_IDS;
+import static sandbox.challenge.employees.service.EmployeeMetrics.SERVICE_TIMER;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -23,12 +62,44 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 class EmployeeControllerTest {
 
     private static final long NON_EXISTING_EMPLOYEE_ID = 333L;
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+    private static final MediaType CBOR = APPLICATION_CBOR;
     @Autowired
     private MockMvc mockMvc;
 
     @Autowired
     private EmployeeRepository employeeRepository;
 
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EmployeeChangeSequence changeSequence;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private SearchIndex searchIndex;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @Autowired
+    private RequestMappingHandlerAdapter handlerAdapter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @Test
     void testCreateEmployee() throws Exception {
         var employeeJson = """
@@ -48,6 +119,115 @@ class EmployeeControllerTest {
                 .andExpect(jsonPath("$.position").value("Senior Software Engineer"));
     }
 
+    @Test
+    void testBulkCreateLinksRowsOfTheSamePayload() throws Exception {
+        var rowsJson = """
+                [
+                    {"key": "dev", "firstName": "Ken", "lastName": "Thompson", "position": "Developer", "supervisorKey": "lead"},
+                    {"key": "lead", "firstName": "Dennis", "lastName": "Ritchie", "position": "Lead"},
+                    {"key": "broken", "firstName": "Brian", "position": "Writer"}
+                ]
+                """;
+
+        mockMvc.perform(post("/api/employees/bulk")
+                        .contentType(APPLICATION_JSON)
+                        .content(rowsJson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].key").value("dev"))
+                .andExpect(jsonPath("$[0].id").isNumber())
+                .andExpect(jsonPath("$[1].id").isNumber())
+                .andExpect(jsonPath("$[2].id").doesNotExist())
+                .andExpect(jsonPath("$[2].error").value("Last name is required"));
+
+        var employees = employeeRepository.findAll();
+        assertThat(employees).hasSize(2);
+        var developer = employees.stream().filter(employee -> employee.getFirstName().equals("Ken")).findFirst().orElseThrow();
+        assertThat(developer.getSupervisor().getFirstName()).isEqualTo("Dennis");
+        assertThat(developer.getCreationDate()).isNotNull();
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void testCreateEmployeeWithSupervisorCachesSupervisorLookupUntilDelete() throws Exception {
+        try {
+            var supervisor = new Employee();
+            supervisor.setFirstName("Barbara");
+            supervisor.setLastName("Liskov");
+            supervisor.setPosition("Professor");
+            var supervisorId = employeeRepository.save(supervisor).getId();
+
+            var employeeJson = String.format("""
+                    {
+                        "firstName": "John",
+                        "lastName": "Guttag",
+                        "position": "Researcher",
+                        "supervisorId": "%d"
+                    }
+                    """, supervisorId);
+
+            var result = mockMvc.perform(post("/api/employees")
+                            .contentType(APPLICATION_JSON)
+                            .content(employeeJson))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.supervisorId").value(supervisorId))
+                    .andReturn();
+
+            var supervisorIds = cacheManager.getCache(EXISTING_EMPLOYEE_IDS);
+            assertThat(supervisorIds.get(supervisorId)).isNotNull();
+
+            var employeeId = JsonPath.<Number>read(result.getResponse().getContentAsString(), "$.id").longValue();
+            mockMvc.perform(delete("/api/employees/{id}", employeeId)).andExpect(status().isNoContent());
+            mockMvc.perform(delete("/api/employees/{id}", supervisorId)).andExpect(status().isNoContent());
+
+            assertThat(supervisorIds.get(supervisorId)).isNull();
+        } finally {
+            employeeRepository.deleteAll();
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void testDeleteEvictsSupervisorLookupOnlyOnceCommitted() {
+        try {
+            var employee = new Employee();
+            employee.setFirstName("Barbara");
+            employee.setLastName("Liskov");
+            employee.setPosition("Professor");
+            var id = employeeRepository.save(employee).getId();
+            assertThat(employeeService.exists(id)).isTrue();
+            var supervisorIds = cacheManager.getCache(EXISTING_EMPLOYEE_IDS);
+
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                employeeService.delete(id);
+                assertThat(supervisorIds.get(id)).isNotNull();
+            });
+
+            assertThat(supervisorIds.get(id)).isNull();
+        } finally {
+            employeeRepository.deleteAll();
+        }
+    }
+
+    @Test
+    void testCreateEmployeeWithUnknownSupervisor() throws Exception {
+        var employeeJson = String.format("""
+                {
+                    "firstName": "John",
+                    "lastName": "Doe",
+                    "position": "Developer",
+                    "supervisorId": "%d"
+                }
+                """, NON_EXISTING_EMPLOYEE_ID);
+
+        mockMvc.perform(post("/api/employees")
+                        .contentType(APPLICATION_JSON)
+                        .content(employeeJson))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("Supervisor not found"));
+
+        assertThat(cacheManager.getCache(EXISTING_EMPLOYEE_IDS).get(NON_EXISTING_EMPLOYEE_ID)).isNull();
+    }
+
     @Test
     void testCreateEmployeeInvalidData() throws Exception {
         var invalidEmployeeJson = """
@@ -85,6 +265,59 @@ class EmployeeControllerTest {
                 .andExpect(jsonPath("$.messages.position").value("Position is required"));
     }
 
+    @Test
+    void testJsonResponsesAreWrittenWithTheApplicationMapper() {
+        var json = handlerAdapter.getMessageConverters().stream()
+                .filter(MappingJackson2HttpMessageConverter.class::isInstance)
+                .map(MappingJackson2HttpMessageConverter.class::cast)
+                .findFirst().orElseThrow();
+
+        assertThat(json.getObjectMapper()).isSameAs(objectMapper);
+        assertThat(objectMapper.getRegisteredModuleIds()).contains(new BlackbirdModule().getTypeId());
+    }
+
+    @Test
+    void testListIsServedAsSmileWhenAsked() throws Exception {
+        var employee = new Employee();
+        employee.setFirstName("Nikolai");
+        employee.setLastName("Efimov");
+        employee.setPosition("Senior Software Engineer");
+        employeeRepository.save(employee);
+
+        var body = mockMvc.perform(get("/api/employees").accept(SMILE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(SMILE))
+                .andExpect(header().stringValues(VARY, hasItem(ACCEPT)))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        var employees = new SmileMapper().readTree(body);
+        assertThat(employees).hasSize(1);
+        assertThat(employees.get(0).get("firstName").asText()).isEqualTo("Nikolai");
+        assertThat(employees.get(0).get("supervisorId").isNull()).isTrue();
+    }
+
+    @Test
+    void testBulkCreateReadsAndWritesCbor() throws Exception {
+        var cbor = new CBORMapper();
+        var rows = cbor.writeValueAsBytes(List.of(
+                Map.of("key", "lead", "firstName", "Dennis", "lastName", "Ritchie", "position", "Lead"),
+                Map.of("key", "dev", "firstName", "Ken", "lastName", "Thompson", "position", "Developer",
+                        "supervisorKey", "lead")));
+
+        var body = mockMvc.perform(post("/api/employees/bulk")
+                        .contentType(CBOR)
+                        .accept(CBOR)
+                        .content(rows))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        var results = cbor.readTree(body);
+        assertThat(results).hasSize(2);
+        assertThat(results.get(1).get("key").asText()).isEqualTo("dev");
+        assertThat(results.get(1).get("id").isNumber()).isTrue();
+    }
+
     @Test
     void testGetAllEmployees() throws Exception {
         assertThat(employeeRepository.findAll()).isEmpty();
@@ -104,6 +337,29 @@ class EmployeeControllerTest {
                 .andExpect(jsonPath("$[0].position").value("Senior Software Engineer"));
     }
 
+    @Test
+    void testGetAllEmployeesAnswersIfNoneMatchUntilTableChanges() throws Exception {
+        var etag = mockMvc.perform(get("/api/employees"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(ETAG))
+                .andReturn().getResponse().getHeader(ETAG);
+
+        mockMvc.perform(get("/api/employees").header(IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        mockMvc.perform(post("/api/employees")
+                        .contentType(APPLICATION_JSON)
+                        .content("""
+                                {"firstName": "Margaret", "lastName": "Hamilton", "position": "Director"}
+                                """))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/employees").header(IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].firstName").value("Margaret"));
+    }
+
     @Test
     void testGetAllEmployeesWithEmptyRepository() throws Exception {
         mockMvc.perform(get("/api/employees"))
@@ -111,6 +367,179 @@ class EmployeeControllerTest {
                 .andExpect(jsonPath("$.length()").value(0));
     }
 
+    @Test
+    void testGetEmployeesPageWalksKeysetCursor() throws Exception {
+        var ids = new ArrayList<Long>();
+        for (var name : new String[]{"Ada", "Grace", "Alan"}) {
+            var employee = new Employee();
+            employee.setFirstName(name);
+            employee.setLastName("Pioneer");
+            employee.setPosition("Engineer");
+            ids.add(employeeRepository.save(employee).getId());
+        }
+
+        mockMvc.perform(get("/api/employees").param("size", "2").param("withTotal", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.content[0].firstName").value("Ada"))
+                .andExpect(jsonPath("$.nextCursor").value(ids.get(1)))
+                .andExpect(jsonPath("$.totalCount").value(3));
+
+        mockMvc.perform(get("/api/employees").param("size", "2").param("after", String.valueOf(ids.get(1))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.content[0].firstName").value("Alan"))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist())
+                .andExpect(jsonPath("$.totalCount").doesNotExist());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void testExportStreamsOneFlatJsonDocumentPerLine() throws Exception {
+        try {
+            var supervisor = new Employee();
+            supervisor.setFirstName("Linus");
+            supervisor.setLastName("Torvalds");
+            supervisor.setPosition("Maintainer");
+            var savedSupervisor = employeeRepository.save(supervisor);
+
+            var employee = new Employee();
+            employee.setFirstName("Greg");
+            employee.setLastName("Kroah-Hartman");
+            employee.setPosition("Maintainer");
+            employee.setSupervisor(savedSupervisor);
+            var savedEmployee = employeeRepository.save(employee);
+
+            var result = mockMvc.perform(get("/api/employees/export"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            // the servlet thread is released with its counting window closed
+            employeeRepository.count();
+            assertThat(statementCounter.current()).isZero();
+
+            var expected = String.format("""
+                    {"id":%d,"firstName":"Linus","lastName":"Torvalds","position":"Maintainer","supervisorId":null,"creationDate":null}
+                    {"id":%d,"firstName":"Greg","lastName":"Kroah-Hartman","position":"Maintainer","supervisorId":%d,"creationDate":null}
+                    """, savedSupervisor.getId(), savedEmployee.getId(), savedSupervisor.getId());
+
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(APPLICATION_NDJSON))
+                    .andExpect(content().string(expected));
+        } finally {
+            employeeRepository.deleteAll();
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void testChangesReturnsUpsertsAndDeletionsAfterTheCursor() throws Exception {
+        try {
+            var since = changeSequence.visibleUpTo();
+            var kept = createEmployee("Grace", "Hopper");
+            var removed = createEmployee("Alan", "Turing");
+            mockMvc.perform(patch("/api/employees/{id}", kept)
+                            .contentType(APPLICATION_JSON)
+                            .content("{\"position\": \"Rear Admiral\"}"))
+                    .andExpect(status().isOk());
+            mockMvc.perform(delete("/api/employees/{id}", removed))
+                    .andExpect(status().isNoContent());
+
+            var firstPage = mockMvc.perform(get("/api/employees/changes")
+                            .param("since", String.valueOf(since))
+                            .param("size", "1"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.changes.length()").value(1))
+                    .andExpect(jsonPath("$.changes[0].type").value("UPSERT"))
+                    .andExpect(jsonPath("$.changes[0].employee.position").value("Rear Admiral"))
+                    .andExpect(jsonPath("$.hasMore").value(true))
+                    .andReturn().getResponse().getContentAsString();
+
+            mockMvc.perform(get("/api/employees/changes")
+                            .param("since", String.valueOf(JsonPath.<Number>read(firstPage, "$.cursor")))
+                            .param("size", "1"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.changes[0].type").value("DELETE"))
+                    .andExpect(jsonPath("$.changes[0].id").value(removed))
+                    .andExpect(jsonPath("$.hasMore").value(false));
+        } finally {
+            employeeRepository.deleteAll();
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void testChangesPageCanEndInsideOneReassignment() throws Exception {
+        try {
+            var supervisor = createEmployee("Grace", "Hopper");
+            var subordinates = List.of(createEmployee("Alan", "Turing"), createEmployee("Ada", "Lovelace"),
+                    createEmployee("Edsger", "Dijkstra"));
+            var since = changeSequence.visibleUpTo();
+            mockMvc.perform(post("/api/employees/{id}/add-subordinates", supervisor)
+                            .contentType(APPLICATION_JSON)
+                            .content(subordinates.toString()))
+                    .andExpect(status().isOk());
+
+            var seen = new ArrayList<Integer>();
+            var cursor = (Number) since;
+            var hasMore = true;
+            while (hasMore) {
+                var page = mockMvc.perform(get("/api/employees/changes")
+                                .param("since", String.valueOf(cursor))
+                                .param("size", "2"))
+                        .andExpect(status().isOk())
+                        .andReturn().getResponse().getContentAsString();
+                seen.addAll(JsonPath.read(page, "$.changes[*].id"));
+                cursor = JsonPath.read(page, "$.cursor");
+                hasMore = JsonPath.read(page, "$.hasMore");
+            }
+
+            assertThat(seen).containsExactlyElementsOf(subordinates);
+        } finally {
+            employeeRepository.deleteAll();
+        }
+    }
+
+    private int createEmployee(String firstName, String lastName) throws Exception {
+        var body = String.format("{\"firstName\": \"%s\", \"lastName\": \"%s\", \"position\": \"Engineer\"}",
+                firstName, lastName);
+        return JsonPath.read(mockMvc.perform(post("/api/employees").contentType(APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(), "$.id");
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void testEventStreamSendsCommittedChanges() throws Exception {
+        try {
+            var result = mockMvc.perform(get("/api/employees/events").param("since", "0"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            var id = JsonPath.<Integer>read(mockMvc.perform(post("/api/employees")
+                            .contentType(APPLICATION_JSON)
+                            .content("{\"firstName\": \"Grace\", \"lastName\": \"Hopper\", \"position\": \"Admiral\"}"))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString(), "$.id");
+            mockMvc.perform(delete("/api/employees/{id}", id))
+                    .andExpect(status().isNoContent());
+
+            var stream = "";
+            for (var attempt = 0; attempt < 50 && !stream.contains("event:delete"); attempt++) {
+                Thread.sleep(100);
+                stream = result.getResponse().getContentAsString();
+            }
+            assertThat(stream)
+                    .startsWith("id:")
+                    .contains("event:reset\n")
+                    .contains("event:upsert\ndata:{\"sequence\":")
+                    .contains("\"firstName\":\"Grace\"")
+                    .contains("event:delete\ndata:{\"sequence\":");
+        } finally {
+            employeeRepository.deleteAll();
+        }
+    }
+
     @Test
     void testGetEmployeeById() throws Exception {
         var employee = new Employee();
@@ -126,6 +555,285 @@ class EmployeeControllerTest {
                 .andExpect(jsonPath("$.position").value("CEO"));
     }
 
+    @Test
+    void testGetEmployeeReferencesSupervisorById() throws Exception {
+        var ceo = new Employee();
+        ceo.setFirstName("Satya");
+        ceo.setLastName("Nadella");
+        ceo.setPosition("CEO");
+        var savedCeo = employeeRepository.save(ceo);
+
+        var employee = new Employee();
+        employee.setFirstName("Scott");
+        employee.setLastName("Guthrie");
+        employee.setPosition("EVP");
+        employee.setSupervisor(savedCeo);
+        var savedEmployee = employeeRepository.save(employee);
+
+        mockMvc.perform(get("/api/employees/" + savedEmployee.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.supervisorId").value(savedCeo.getId()))
+                .andExpect(jsonPath("$.supervisor").doesNotExist());
+
+        mockMvc.perform(get("/api/employees"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[1].supervisorId").value(savedCeo.getId()))
+                .andExpect(jsonPath("$[1].supervisor").doesNotExist());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void testRepeatedReadsAreServedFromSecondLevelCache() throws Exception {
+        try {
+            var supervisor = new Employee();
+            supervisor.setFirstName("Edsger");
+            supervisor.setLastName("Dijkstra");
+            supervisor.setPosition("Professor");
+            var savedSupervisor = employeeRepository.save(supervisor);
+
+            var employee = new Employee();
+            employee.setFirstName("Tony");
+            employee.setLastName("Hoare");
+            employee.setPosition("Professor");
+            employee.setSupervisor(savedSupervisor);
+            var savedEmployee = employeeRepository.save(employee);
+
+            var statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+            mockMvc.perform(get("/api/employees/{id}", savedEmployee.getId())).andExpect(status().isOk());
+            var entityHits = statistics.getSecondLevelCacheHitCount();
+            mockMvc.perform(get("/api/employees/{id}", savedEmployee.getId()))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.supervisorId").value(savedSupervisor.getId()));
+            assertThat(statistics.getSecondLevelCacheHitCount()).isGreaterThan(entityHits);
+
+            mockMvc.perform(get("/api/employees/{id}/subordinates", savedSupervisor.getId())).andExpect(status().isOk());
+            var queryHits = statistics.getQueryCacheHitCount();
+            mockMvc.perform(get("/api/employees/{id}/subordinates", savedSupervisor.getId()))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].firstName").value("Tony"));
+            assertThat(statistics.getQueryCacheHitCount()).isGreaterThan(queryHits);
+
+            mockMvc.perform(patch("/api/employees/{id}", savedEmployee.getId())
+                            .contentType(APPLICATION_JSON)
+                            .content("{\"supervisorId\": \"\"}"))
+                    .andExpect(status().isOk());
+            mockMvc.perform(get("/api/employees/{id}/subordinates", savedSupervisor.getId()))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(0));
+        } finally {
+            employeeRepository.deleteAll();
+        }
+    }
+
+    @Test
+    void testGetSubtreeReturnsAdjacencyListUpToDepth() throws Exception {
+        var cto = saveEmployee("Werner", "Vogels", "CTO", null);
+        var lead = saveEmployee("James", "Gosling", "Lead", cto);
+        var developer = saveEmployee("Josh", "Bloch", "Developer", lead);
+        saveEmployee("Unrelated", "Person", "Developer", null);
+
+        mockMvc.perform(get("/api/employees/{id}/subtree", cto.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].id").value(cto.getId()))
+                .andExpect(jsonPath("$[0].depth").value(0))
+                .andExpect(jsonPath("$[1].firstName").value("James"))
+                .andExpect(jsonPath("$[1].supervisorId").value(cto.getId()))
+                .andExpect(jsonPath("$[2].id").value(developer.getId()))
+                .andExpect(jsonPath("$[2].supervisorId").value(lead.getId()))
+                .andExpect(jsonPath("$[2].depth").value(2));
+
+        mockMvc.perform(get("/api/employees/{id}/subtree", cto.getId()).param("depth", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+
+        mockMvc.perform(get("/api/employees/{id}/subtree", NON_EXISTING_EMPLOYEE_ID))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testPathsFollowSubtreeMoves() throws Exception {
+        var cto = saveEmployee("James", "Gosling", "CTO", null);
+        var vp = saveEmployee("Guy", "Steele", "VP", null);
+        var lead = saveEmployee("Doug", "Lea", "Lead", cto);
+        var developer = saveEmployee("Josh", "Bloch", "Developer", lead);
+
+        mockMvc.perform(get("/api/employees/{id}/chain", developer.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id").value(contains(cto.getId().intValue(), lead.getId().intValue())));
+
+        mockMvc.perform(post("/api/employees/{id}/add-subordinates", vp.getId())
+                        .contentType(APPLICATION_JSON)
+                        .content("[" + lead.getId() + "]"))
+                .andExpect(status().isOk());
+
+        assertThat(employeeRepository.findById(developer.getId()).orElseThrow().getPath())
+                .isEqualTo("/" + vp.getId() + "/" + lead.getId() + "/");
+
+        mockMvc.perform(patch("/api/employees/{id}", vp.getId())
+                        .contentType(APPLICATION_JSON)
+                        .content("{\"supervisorId\": \"" + cto.getId() + "\"}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/employees/{id}/chain", developer.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id").value(contains(
+                        cto.getId().intValue(), vp.getId().intValue(), lead.getId().intValue())));
+
+        mockMvc.perform(patch("/api/employees/{id}", lead.getId())
+                        .contentType(APPLICATION_JSON)
+                        .content("{\"supervisorId\": \"" + developer.getId() + "\"}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testServiceTimersAndStatementCountsAreRecorded() throws Exception {
+        var supervisor = saveEmployee("Grace", "Hopper", "Admiral", null);
+        var timer = meterRegistry.find(SERVICE_TIMER).tag("method", "getById");
+        var before = timer.timer() == null ? 0 : timer.timer().count();
+
+        mockMvc.perform(get("/api/employees/{id}", supervisor.getId()))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/employees")
+                        .contentType(APPLICATION_JSON)
+                        .content("{\"firstName\": \"Ada\", \"lastName\": \"Lovelace\", \"position\": \"Engineer\","
+                                + " \"supervisorId\": " + supervisor.getId() + "}"))
+                .andExpect(status().isOk());
+
+        assertThat(meterRegistry.get(SERVICE_TIMER).tag("method", "getById").timer().count()).isEqualTo(before + 1);
+        assertThat(meterRegistry.get("employees.deserializer.supervisor.lookup").tag("outcome", "found").timer().count())
+                .isPositive();
+        assertThat(meterRegistry.get(StatementCountInterceptor.METRIC)
+                .tag("method", "GET").tag("uri", "/api/employees/{id}").summary().count()).isPositive();
+    }
+
+    @Test
+    void testReadEndpointsStayWithinConstantQueryCounts() throws Exception {
+        var cto = saveEmployee("James", "Gosling", "CTO", null);
+        for (var i = 0; i < 20; i++) {
+            var lead = saveEmployee("Lead" + i, "Lea", "Lead", cto);
+            saveEmployee("Developer" + i, "Bloch", "Developer", lead);
+        }
+        employeeRepository.flush();
+
+        mockMvc.perform(get("/api/employees"))
+                .andExpect(status().isOk())
+                .andExpect(statementsAtMost(1));
+        mockMvc.perform(get("/api/employees").param("size", "50").param("withTotal", "true"))
+                .andExpect(status().isOk())
+                .andExpect(statementsAtMost(2));
+        mockMvc.perform(get("/api/employees/{id}/subordinates", cto.getId()))
+                .andExpect(status().isOk())
+                .andExpect(statementsAtMost(2));
+        mockMvc.perform(get("/api/employees/{id}/subtree", cto.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(41))
+                .andExpect(statementsAtMost(1));
+    }
+
+    @Test
+    void testFilterAndSortEmployees() throws Exception {
+        var cto = saveEmployee("James", "Gosling", "CTO", null);
+        var lea = saveEmployee("Doug", "Lea", "Developer", cto);
+        var bloch = saveEmployee("Josh", "Bloch", "Developer", cto);
+        saveEmployee("Joshua", "Loch", "Tester", cto);
+        saveEmployee("Brian", "Goetz", "Developer", lea);
+
+        mockMvc.perform(get("/api/employees")
+                        .param("position", "Developer")
+                        .param("supervisorId", cto.getId().toString())
+                        .param("sort", "lastName,desc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id").value(contains(lea.getId().intValue(), bloch.getId().intValue())));
+
+        mockMvc.perform(get("/api/employees").param("name", "Jos").param("sort", "firstName"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].lastName").value(contains("Bloch", "Loch")));
+
+        mockMvc.perform(get("/api/employees")
+                        .param("createdFrom", "2000-01-01T00:00:00")
+                        .param("createdTo", "2000-12-31T23:59:59"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+
+        mockMvc.perform(get("/api/employees").param("position", "Developer").param("size", "2").param("withTotal", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.totalCount").value(3))
+                .andExpect(jsonPath("$.nextCursor").value(bloch.getId()));
+
+        mockMvc.perform(get("/api/employees").param("sort", "path"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Invalid query"));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void testSearchFindsEmployeesCreatedThroughTheApi() throws Exception {
+        try {
+            for (var name : List.of("Zeta Quokkason", "Zed Quokka", "Quentin Zebra")) {
+                var parts = name.split(" ");
+                mockMvc.perform(post("/api/employees")
+                                .contentType(APPLICATION_JSON)
+                                .content("{\"firstName\": \"" + parts[0] + "\", \"lastName\": \"" + parts[1]
+                                        + "\", \"position\": \"Zookeeper\"}"))
+                        .andExpect(status().isOk());
+            }
+
+            mockMvc.perform(get("/api/employees/search").param("q", "quokka z").param("size", "1"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content[0].firstName").value("Zed"))
+                    .andExpect(jsonPath("$.nextCursor").value(1))
+                    .andExpect(jsonPath("$.totalCount").value(2))
+                    .andExpect(statementsAtMost(0));
+        } finally {
+            employeeRepository.deleteAll();
+            searchIndex.invalidate();
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void testSearchReloadsADroppedIndexWithinItsBudget() throws Exception {
+        try {
+            mockMvc.perform(post("/api/employees")
+                            .contentType(APPLICATION_JSON)
+                            .content("{\"firstName\": \"Zed\", \"lastName\": \"Quokka\", \"position\": \"Zookeeper\"}"))
+                    .andExpect(status().isOk());
+            searchIndex.invalidate();
+
+            mockMvc.perform(get("/api/employees/search").param("q", "quokka"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.totalCount").value(1))
+                    .andExpect(statementsAtMost(1));
+        } finally {
+            employeeRepository.deleteAll();
+            searchIndex.invalidate();
+        }
+    }
+
+    @Test
+    void testSearchDoesNotSeeAWriteThatRollsBack() throws Exception {
+        mockMvc.perform(get("/api/employees/search").param("q", "quokka")).andExpect(status().isOk());
+        mockMvc.perform(post("/api/employees")
+                        .contentType(APPLICATION_JSON)
+                        .content("{\"firstName\": \"Zed\", \"lastName\": \"Quokka\", \"position\": \"Zookeeper\"}"))
+                .andExpect(status().isOk());
+
+        // the employee is written in this test's transaction, which never commits
+        mockMvc.perform(get("/api/employees/search").param("q", "quokka"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalCount").value(0));
+    }
+
+    @Test
+    void testSearchWithHugeOffsetReturnsAnEmptyPage() throws Exception {
+        mockMvc.perform(get("/api/employees/search").param("q", "a").param("offset", String.valueOf(Integer.MAX_VALUE)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content").isEmpty());
+    }
+
     @Test
     void testGetEmployeeByIdNotFound() throws Exception {
         mockMvc.perform(get("/api/employees/{id}", NON_EXISTING_EMPLOYEE_ID)
@@ -188,6 +896,34 @@ class EmployeeControllerTest {
         assertThat(updatedEmployee.getPosition()).isEqualTo("Senior Software Developer");
     }
 
+    @Test
+    void testUpdateEmployeeWithStaleIfMatchIsRejected() throws Exception {
+        var employee = new Employee();
+        employee.setFirstName("Nikolai");
+        employee.setLastName("Efimov");
+        employee.setPosition("Senior Software Engineer");
+        var savedEmployee = employeeRepository.saveAndFlush(employee);
+
+        var etag = mockMvc.perform(get("/api/employees/{id}", savedEmployee.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(ETAG, "\"0\""))
+                .andReturn().getResponse().getHeader(ETAG);
+
+        mockMvc.perform(patch("/api/employees/{id}", savedEmployee.getId())
+                        .header(IF_MATCH, "\"7\"")
+                        .contentType(APPLICATION_JSON)
+                        .content("{\"position\": \"Staff Engineer\"}"))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.error").value("Precondition failed"));
+
+        mockMvc.perform(patch("/api/employees/{id}", savedEmployee.getId())
+                        .header(IF_MATCH, etag)
+                        .contentType(APPLICATION_JSON)
+                        .content("{\"position\": \"Staff Engineer\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.position").value("Staff Engineer"));
+    }
+
     @Test
     void testUpdateEmployeeNotFound() throws Exception {
         var updatedEmployeeJson = """
@@ -204,6 +940,68 @@ class EmployeeControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void testUpdateEmployeeAcceptsMergePatchAndClearsSupervisorWithNull() throws Exception {
+        var supervisor = new Employee();
+        supervisor.setFirstName("Dennis");
+        supervisor.setLastName("Ritchie");
+        supervisor.setPosition("Lead");
+        var savedSupervisor = employeeRepository.save(supervisor);
+
+        var employee = new Employee();
+        employee.setFirstName("Ken");
+        employee.setLastName("Thompson");
+        employee.setPosition("Developer");
+        employee.setSupervisor(savedSupervisor);
+        var savedEmployee = employeeRepository.save(employee);
+
+        mockMvc.perform(patch("/api/employees/{id}", savedEmployee.getId())
+                        .contentType("application/merge-patch+json")
+                        .content("{\"position\": \"Architect\", \"supervisorId\": null, \"nickname\": {\"ignored\": true}}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.firstName").value("Ken"))
+                .andExpect(jsonPath("$.position").value("Architect"))
+                .andExpect(jsonPath("$.supervisorId").doesNotExist());
+    }
+
+    @Test
+    void testUpdateSeveralEmployeesInOneRequest() throws Exception {
+        var lead = new Employee();
+        lead.setFirstName("Dennis");
+        lead.setLastName("Ritchie");
+        lead.setPosition("Lead");
+        var savedLead = employeeRepository.save(lead);
+
+        var developer = new Employee();
+        developer.setFirstName("Ken");
+        developer.setLastName("Thompson");
+        developer.setPosition("Developer");
+        var savedDeveloper = employeeRepository.save(developer);
+
+        var patchesJson = String.format("""
+                [
+                    {"id": %d, "position": "Head of Research"},
+                    {"id": %d, "position": "Senior Developer", "supervisorId": %d}
+                ]
+                """, savedLead.getId(), savedDeveloper.getId(), savedLead.getId());
+
+        mockMvc.perform(patch("/api/employees")
+                        .contentType(APPLICATION_JSON)
+                        .content(patchesJson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].position").value("Head of Research"))
+                .andExpect(jsonPath("$[1].position").value("Senior Developer"))
+                .andExpect(jsonPath("$[1].supervisorId").value(savedLead.getId()));
+
+        assertThat(employeeRepository.findById(savedDeveloper.getId()).orElseThrow().getPath())
+                .isEqualTo("/" + savedLead.getId() + "/");
+
+        mockMvc.perform(patch("/api/employees")
+                        .contentType(APPLICATION_JSON)
+                        .content("[{\"id\": " + NON_EXISTING_EMPLOYEE_ID + ", \"position\": \"Ghost\"}]"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     @Disabled("flaky test - deeper investigation required")
     @DirtiesContext
@@ -386,4 +1184,13 @@ class EmployeeControllerTest {
                 .andExpect(jsonPath("$.position").value("Senior Developer"));
     }
 
-}
\ No newline at end of file
+    private Employee saveEmployee(String firstName, String lastName, String position, Employee supervisor) {
+        var employee = new Employee();
+        employee.setFirstName(firstName);
+        employee.setLastName(lastName);
+        employee.setPosition(position);
+        employee.setSupervisor(supervisor);
+        return employeeRepository.save(employee);
+    }
+
+}
@@ -0,0 +1,25 @@
+package sandbox.challenge.employees.controller;
+
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static sandbox.challenge.employees.config.StatementCountInterceptor.STATEMENTS_ATTRIBUTE;
+
+/**
+ * MockMvc matchers on the number of SQL statements a request issued, as counted by the statement interceptor.
+ */
+final class StatementCountMatchers {
+
+    private StatementCountMatchers() {
+    }
+
+    static ResultMatcher statementsAtMost(int limit) {
+        return result -> {
+            var request = result.getRequest();
+            assertThat((Integer) request.getAttribute(STATEMENTS_ATTRIBUTE))
+                    .as("SQL statements issued by %s %s", request.getMethod(), request.getRequestURI())
+                    .isNotNull()
+                    .isLessThanOrEqualTo(limit);
+        };
+    }
+}
@@ -0,0 +1,235 @@
+package sandbox.challenge.employees.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import sandbox.challenge.employees.domain.Employee;
+import sandbox.challenge.employees.domain.EmployeeChange;
+import sandbox.challenge.employees.domain.EmployeeFilter;
+import sandbox.challenge.employees.domain.EmployeeView;
+import sandbox.challenge.employees.domain.SubtreeNode;
+import sandbox.challenge.employees.service.EmployeeChangeSequence;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.springframework.data.domain.Sort.Direction.DESC;
+
+class ColumnarEmployeeStoreTest {
+
+    private static final LocalDateTime CREATED = LocalDateTime.of(2024, 5, 1, 9, 30, 15, 123_456_000);
+
+    @TempDir
+    private Path directory;
+
+    private Path walPath;
+    private ColumnarEmployeeStore store;
+
+    @BeforeEach
+    void setUp() {
+        walPath = directory.resolve("employees.wal");
+        store = open();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        store.close();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testSavedEmployeesAreReadBackWithPathsFromTheSupervisorLinks() {
+        var boss = store.save(employee("Ada", "Lovelace", "CEO", null));
+        var lead = store.save(employee("Grace", "Hopper", "Lead", boss));
+        var developer = store.save(employee("Alan", "Turing", "Developer", lead));
+
+        var found = store.findById(developer.getId()).orElseThrow();
+        assertThat(found.getPath()).isEqualTo("/" + boss.getId() + "/" + lead.getId() + "/");
+        assertThat(found.getSupervisor().getId()).isEqualTo(lead.getId());
+        assertThat(found.getCreationDate()).isEqualTo(CREATED);
+        assertThat(found.getVersion()).isZero();
+        assertThat(store.findBySupervisorId(boss.getId())).extracting(EmployeeView::id).containsExactly(lead.getId());
+        assertThat(store.findSubtree(boss.getId(), 1)).extracting(SubtreeNode::id, SubtreeNode::depth)
+                .containsExactly(tuple(boss.getId(), 0),
+                        tuple(lead.getId(), 1));
+    }
+
+    @Test
+    void testWritingAStaleVersionFails() {
+        var employee = store.save(employee("Ada", "Lovelace", "Developer", null));
+        var stale = store.findById(employee.getId()).orElseThrow();
+
+        employee.setPosition("Lead");
+        store.save(employee);
+
+        assertThat(store.findById(employee.getId()).orElseThrow().getVersion()).isEqualTo(1L);
+        assertThatThrownBy(() -> store.save(stale)).isInstanceOf(ObjectOptimisticLockingFailureException.class);
+    }
+
+    @Test
+    void testFiltersAndSortsLikeTheDatabase() {
+        store.save(employee("Ada", "Lovelace", "Developer", null));
+        store.save(employee("Grace", "Hopper", "Developer", null));
+        store.save(employee("Alan", "Turing", "Lead", null));
+
+        var developers = new EmployeeFilter("Developer", null, null, null, null);
+        assertThat(store.findViews(developers, Sort.by(DESC, "lastName").and(Sort.by("id"))))
+                .extracting(EmployeeView::lastName).containsExactly("Lovelace", "Hopper");
+        assertThat(store.findViewsAfter(new EmployeeFilter(null, "A", null, null, null), 1L, 10))
+                .extracting(EmployeeView::lastName).containsExactly("Turing");
+        assertThat(store.count(developers)).isEqualTo(2L);
+        assertThat(store.count(new EmployeeFilter("Intern", null, null, null, null))).isZero();
+    }
+
+    @Test
+    void testChangesSkipRowsThatWereWrittenAgain() {
+        var first = store.save(employee("Ada", "Lovelace", "Developer", null));
+        var second = store.save(employee("Grace", "Hopper", "Developer", null));
+        first.setPosition("Lead");
+        store.save(first);
+        store.delete(second.getId());
+
+        assertThat(store.findUpsertsBetween(0L, Long.MAX_VALUE, 10))
+                .extracting(EmployeeChange::id, change -> change.employee().position())
+                .containsExactly(tuple(first.getId(), "Lead"));
+        assertThat(store.findDeletionsBetween(0L, Long.MAX_VALUE, 10))
+                .extracting(EmployeeChange::id).containsExactly(second.getId());
+    }
+
+    @Test
+    void testRowsSurviveARestart() throws IOException {
+        var boss = store.save(employee("Ada", "Lovelace", "CEO", null));
+        var developer = store.save(employee("Grace", "Hopper", "Developer", null));
+        var intern = store.save(employee("Alan", "Turing", "Intern", null));
+        store.reassign(boss, List.of(developer));
+        store.delete(intern.getId());
+        var before = store.findAllViews();
+        store.close();
+
+        var changeSequence = new EmployeeChangeSequence(0L);
+        store = new ColumnarEmployeeStore(changeSequence, walPath, false);
+
+        assertThat(store.findAllViews()).isEqualTo(before);
+        assertThat(store.findById(developer.getId()).orElseThrow().getPath()).isEqualTo("/" + boss.getId() + "/");
+        assertThat(store.findDeletionsBetween(0L, Long.MAX_VALUE, 10)).extracting(EmployeeChange::id)
+                .containsExactly(intern.getId());
+        assertThat(changeSequence.next()).isEqualTo(6L);
+        assertThat(store.save(employee("Edsger", "Dijkstra", "Developer", null)).getId()).isEqualTo(intern.getId() + 1);
+    }
+
+    @Test
+    void testTornRecordAtTheEndIsCutOff() throws IOException {
+        store.save(employee("Ada", "Lovelace", "Developer", null));
+        store.close();
+        Files.write(walPath, new byte[]{0, 0, 0, 42, 'U', 1, 2}, StandardOpenOption.APPEND);
+
+        store = open();
+        store.save(employee("Grace", "Hopper", "Developer", null));
+        store.close();
+        store = open();
+
+        assertThat(store.findAllViews()).extracting(EmployeeView::lastName).containsExactly("Lovelace", "Hopper");
+    }
+
+    @Test
+    void testRollbackPutsTheRowsBack() throws IOException {
+        var employee = store.save(employee("Ada", "Lovelace", "Developer", null));
+
+        TransactionSynchronizationManager.initSynchronization();
+        employee.setPosition("Lead");
+        store.save(employee);
+        store.save(employee("Grace", "Hopper", "Developer", null));
+        assertThat(store.findAllViews()).hasSize(2);
+        var synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertThat(store.findAllViews()).extracting(EmployeeView::position).containsExactly("Developer");
+        assertThat(store.findUpsertsBetween(0L, Long.MAX_VALUE, 10)).extracting(EmployeeChange::id)
+                .containsExactly(employee.getId());
+        store.close();
+        store = open();
+        assertThat(store.findAllViews()).extracting(EmployeeView::position).containsExactly("Developer");
+    }
+
+    @Test
+    void testTransactionCutOffPartwayThroughItsRecordsIsNotReplayed() throws IOException {
+        var ada = store.save(employee("Ada", "Lovelace", "Developer", null));
+        var intact = Files.size(walPath);
+
+        TransactionSynchronizationManager.initSynchronization();
+        ada.setPosition("Lead");
+        store.save(ada);
+        store.save(employee("Grace", "Hopper", "Developer", null));
+        store.save(employee("Alan", "Turing", "Developer", null));
+        end(TransactionSynchronization.STATUS_COMMITTED);
+        store.close();
+        assertThat(Files.size(walPath)).isGreaterThan(intact);
+        try (var log = FileChannel.open(walPath, StandardOpenOption.WRITE)) {
+            log.truncate(intact + (Files.size(walPath) - intact) / 2);
+        }
+
+        store = open();
+
+        assertThat(store.findAllViews()).extracting(EmployeeView::lastName, EmployeeView::position)
+                .containsExactly(tuple("Lovelace", "Developer"));
+        assertThat(Files.size(walPath)).isEqualTo(intact);
+    }
+
+    @Test
+    void testCommitThatFailsLeavesNothingInTheLog() throws IOException {
+        store.save(employee("Ada", "Lovelace", "Developer", null));
+
+        TransactionSynchronizationManager.initSynchronization();
+        store.save(employee("Grace", "Hopper", "Developer", null));
+        TransactionSynchronizationManager.getSynchronizations().forEach(synchronization -> synchronization.beforeCommit(false));
+        end(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(store.findAllViews()).extracting(EmployeeView::lastName).containsExactly("Lovelace");
+        store.close();
+        store = open();
+        assertThat(store.findAllViews()).extracting(EmployeeView::lastName).containsExactly("Lovelace");
+    }
+
+    /**
+     * Ends the transaction the test started with {@code status}, the way the transaction manager would.
+     */
+    private static void end(int status) {
+        var synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            synchronizations.forEach(synchronization -> synchronization.beforeCommit(false));
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+        }
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+
+    private ColumnarEmployeeStore open() {
+        return new ColumnarEmployeeStore(new EmployeeChangeSequence(0L), walPath, false);
+    }
+
+    private static Employee employee(String firstName, String lastName, String position, Employee supervisor) {
+        var employee = new Employee();
+        employee.setFirstName(firstName);
+        employee.setLastName(lastName);
+        employee.setPosition(position);
+        employee.setSupervisor(supervisor);
+        employee.setCreationDate(CREATED);
+        return employee;
+    }
+}
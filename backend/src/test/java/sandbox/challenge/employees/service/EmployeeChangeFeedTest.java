@@ -0,0 +1,194 @@
+package sandbox.challenge.employees.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import sandbox.challenge.employees.domain.EmployeeChange;
+import sandbox.challenge.employees.domain.EmployeeView;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static sandbox.challenge.employees.domain.EmployeeChange.Type.DELETE;
+import static sandbox.challenge.employees.domain.EmployeeChange.Type.UPSERT;
+
+class EmployeeChangeFeedTest {
+
+    private EmployeeChangeFeed changeFeed;
+
+    @BeforeEach
+    void setUp() {
+        changeFeed = new EmployeeChangeFeed(3, 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        changeFeed.close();
+    }
+
+    @Test
+    void testChangesGetIncreasingSequenceNumbers() throws InterruptedException {
+        var subscriber = new RecordingSubscriber();
+        changeFeed.subscribe(null, subscriber);
+        subscriber.nextReset();
+
+        changeFeed.upserted(view(1L, "Developer"));
+        changeFeed.deleted(1L);
+
+        var upsert = subscriber.next();
+        var delete = subscriber.next();
+        assertThat(upsert.type()).isEqualTo(UPSERT);
+        assertThat(upsert.employee().position()).isEqualTo("Developer");
+        assertThat(delete.type()).isEqualTo(DELETE);
+        assertThat(delete.id()).isEqualTo(1L);
+        assertThat(delete.sequence()).isEqualTo(upsert.sequence() + 1);
+        assertThat(changeFeed.latestSequence()).isEqualTo(delete.sequence());
+    }
+
+    @Test
+    void testNewSubscriberStartsWithAReset() throws InterruptedException {
+        changeFeed.upserted(view(1L, "Developer"));
+
+        var subscriber = new RecordingSubscriber();
+        changeFeed.subscribe(null, subscriber);
+        changeFeed.upserted(view(2L, "Developer"));
+
+        assertThat(subscriber.nextReset()).endsWith("-1");
+        assertThat(subscriber.next().sequence()).isEqualTo(2L);
+    }
+
+    @Test
+    void testSubscriberResumesAfterThePositionItSawLast() throws InterruptedException {
+        var first = new RecordingSubscriber();
+        changeFeed.subscribe(null, first);
+        changeFeed.upserted(view(1L, "Developer"));
+        changeFeed.upserted(view(2L, "Developer"));
+        first.next();
+        var seenLast = first.positions.poll(5, TimeUnit.SECONDS);
+
+        var subscriber = new RecordingSubscriber();
+        changeFeed.subscribe(seenLast, subscriber);
+        changeFeed.upserted(view(3L, "Developer"));
+
+        assertThat(subscriber.next().sequence()).isEqualTo(2L);
+        assertThat(subscriber.next().sequence()).isEqualTo(3L);
+        assertThat(subscriber.resets).isEmpty();
+        assertThat(subscriber.changes.poll(100, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    void testSubscriberIsResetWhenItsPositionIsNoLongerRetained() throws InterruptedException {
+        var first = new RecordingSubscriber();
+        changeFeed.subscribe(null, first);
+        var start = first.nextReset();
+        for (var id = 1L; id <= 5L; id++) {
+            changeFeed.upserted(view(id, "Developer"));
+        }
+
+        var subscriber = new RecordingSubscriber();
+        changeFeed.subscribe(start, subscriber);
+
+        assertThat(subscriber.nextReset()).endsWith("-5");
+        changeFeed.upserted(view(6L, "Developer"));
+        assertThat(subscriber.next().sequence()).isEqualTo(6L);
+    }
+
+    @Test
+    void testSubscriberIsResetWhenItsPositionIsFromBeforeARestart() throws InterruptedException {
+        changeFeed.upserted(view(1L, "Developer"));
+        changeFeed.upserted(view(2L, "Developer"));
+
+        var subscriber = new RecordingSubscriber();
+        changeFeed.subscribe("0-1", subscriber);
+
+        assertThat(subscriber.nextReset()).endsWith("-2");
+        assertThat(subscriber.changes.poll(100, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    void testSubscriberThatReturnsFalseIsDropped() throws InterruptedException {
+        var subscriber = new RecordingSubscriber();
+        changeFeed.subscribe(null, subscriber);
+        subscriber.nextReset();
+        subscriber.accepting = false;
+
+        changeFeed.upserted(view(1L, "Developer"));
+        changeFeed.upserted(view(2L, "Developer"));
+
+        assertThat(subscriber.next().sequence()).isEqualTo(1L);
+        assertThat(subscriber.changes.poll(100, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    void testSlowSubscriberDoesNotHoldUpOthersAndIsResetWhenItFallsBehind() throws InterruptedException {
+        var slow = new RecordingSubscriber();
+        var fast = new RecordingSubscriber();
+        changeFeed.subscribe(null, slow);
+        changeFeed.subscribe(null, fast);
+        slow.nextReset();
+        fast.nextReset();
+        slow.blocked = new CountDownLatch(1);
+
+        changeFeed.upserted(view(1L, "Developer"));
+        assertThat(slow.next().sequence()).isEqualTo(1L);
+        assertThat(fast.next().sequence()).isEqualTo(1L);
+        for (var id = 2L; id <= 5L; id++) {
+            changeFeed.upserted(view(id, "Developer"));
+            assertThat(fast.next().sequence()).isEqualTo(id);
+        }
+
+        slow.blocked.countDown();
+        assertThat(slow.nextReset()).endsWith("-5");
+        changeFeed.upserted(view(6L, "Developer"));
+        assertThat(slow.next().sequence()).isEqualTo(6L);
+    }
+
+    private static EmployeeView view(Long id, String position) {
+        return new EmployeeView(id, "Ada", "Lovelace", position, null, null);
+    }
+
+    private static final class RecordingSubscriber implements EmployeeChangeFeed.Subscriber {
+
+        private final BlockingQueue<EmployeeChange> changes = new LinkedBlockingQueue<>();
+        private final BlockingQueue<String> resets = new LinkedBlockingQueue<>();
+        private final BlockingQueue<String> positions = new LinkedBlockingQueue<>();
+        private volatile boolean accepting = true;
+        private volatile CountDownLatch blocked;
+
+        @Override
+        public boolean onChange(String position, EmployeeChange change) {
+            changes.add(change);
+            positions.add(position);
+            var latch = blocked;
+            if (latch != null) {
+                try {
+                    latch.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return accepting;
+        }
+
+        @Override
+        public boolean onReset(String position) {
+            resets.add(position);
+            return true;
+        }
+
+        private EmployeeChange next() throws InterruptedException {
+            var change = changes.poll(5, TimeUnit.SECONDS);
+            assertThat(change).isNotNull();
+            return change;
+        }
+
+        private String nextReset() throws InterruptedException {
+            var reset = resets.poll(5, TimeUnit.SECONDS);
+            assertThat(reset).isNotNull();
+            return reset;
+        }
+    }
+}
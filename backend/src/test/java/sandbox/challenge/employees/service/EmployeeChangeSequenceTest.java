@@ -0,0 +1,59 @@
+package sandbox.challenge.employees.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EmployeeChangeSequenceTest {
+
+    private final EmployeeChangeSequence changeSequence = new EmployeeChangeSequence(10L);
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testSequencesOutsideTransactionsAreVisibleRightAway() {
+        assertThat(changeSequence.next()).isEqualTo(11L);
+        assertThat(changeSequence.next()).isEqualTo(12L);
+
+        assertThat(changeSequence.visibleUpTo()).isEqualTo(12L);
+    }
+
+    @Test
+    void testBlockOfSequencesStaysInFlightUntilItsTransactionEnds() {
+        TransactionSynchronizationManager.initSynchronization();
+        assertThat(changeSequence.next(3)).isEqualTo(11L);
+        var open = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertThat(changeSequence.next()).isEqualTo(14L);
+        assertThat(changeSequence.visibleUpTo()).isEqualTo(10L);
+
+        open.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        assertThat(changeSequence.visibleUpTo()).isEqualTo(14L);
+    }
+
+    @Test
+    void testVisibleSequenceStopsBelowTheOldestOpenTransaction() {
+        TransactionSynchronizationManager.initSynchronization();
+        assertThat(changeSequence.next()).isEqualTo(11L);
+        var open = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+
+        // a later writer that committed already
+        assertThat(changeSequence.next()).isEqualTo(12L);
+        assertThat(changeSequence.visibleUpTo()).isEqualTo(10L);
+
+        open.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        assertThat(changeSequence.visibleUpTo()).isEqualTo(12L);
+    }
+}
@@ -1,16 +1,34 @@
 package sandbox.challenge.employees.service;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validation;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Limit;
+import sandbox.challenge.employees.domain.BulkEmployeeRequest;
+import sandbox.challenge.employees.domain.BulkEmployeeResult;
 import sandbox.challenge.employees.domain.Employee;
+import sandbox.challenge.employees.domain.EmployeeChange;
+import sandbox.challenge.employees.domain.EmployeeTombstone;
+import sandbox.challenge.employees.domain.EmployeePatch;
+import sandbox.challenge.employees.domain.EmployeeView;
+import sandbox.challenge.employees.domain.HierarchyEdge;
 import sandbox.challenge.employees.exception.InfiniteRecursionException;
+import sandbox.challenge.employees.exception.InvalidQueryException;
+import sandbox.challenge.employees.exception.PreconditionFailedException;
 import sandbox.challenge.employees.exception.ResourceNotFoundException;
 import sandbox.challenge.employees.exception.SupervisorHasSubordinatesException;
 import sandbox.challenge.employees.repository.EmployeeRepository;
+import sandbox.challenge.employees.repository.EmployeeTombstoneRepository;
+import sandbox.challenge.employees.repository.JpaEmployeeStore;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -23,12 +41,21 @@ class EmployeeServiceTest {
     @Mock
     private EmployeeRepository employeeRepository;
 
-    @InjectMocks
+    @Mock
+    private EmployeeChangeFeed changeFeed;
+
+    @Mock
+    private EmployeeTombstoneRepository tombstoneRepository;
+
+    @Mock
+    private EmployeeWriteBehind writeBehind;
+
     private EmployeeService employeeService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        employeeService = service(new EmployeeChangeSequence(0L));
     }
 
     @Test
@@ -36,8 +63,12 @@ class EmployeeServiceTest {
         var employee = new Employee();
         employee.setFirstName("Nikolai");
         employee.setLastName("Efimov");
+        employee.setPosition("Engineer");
 
-        when(employeeRepository.save(employee)).thenReturn(employee);
+        when(employeeRepository.save(employee)).thenAnswer(invocation -> {
+            employee.setId(1L);
+            return employee;
+        });
 
         var createdEmployee = employeeService.create(employee);
 
@@ -48,11 +79,97 @@ class EmployeeServiceTest {
         verify(employeeRepository).save(employee);
     }
 
+    @Test
+    void testCreateInvalidEmployeeIsRejectedBeforeSaving() {
+        var employee = new Employee();
+        employee.setFirstName("Nikolai");
+
+        assertThatThrownBy(() -> employeeService.create(employee))
+                .isInstanceOf(ConstraintViolationException.class);
+
+        verify(employeeRepository, never()).save(any(Employee.class));
+    }
+
+    @Test
+    void testCreateAllOrdersRowsBySupervisorKeyAndReportsEachRow() {
+        var sequence = new long[]{100};
+        when(employeeRepository.findExistingIds(List.of(7L, 8L))).thenReturn(List.of(7L));
+        when(employeeRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Employee> employees = invocation.getArgument(0);
+            employees.forEach(employee -> employee.setId(sequence[0]++));
+            return employees;
+        });
+        var existing = new Employee();
+        existing.setId(7L);
+        when(employeeRepository.getReferenceById(7L)).thenReturn(existing);
+
+        var results = employeeService.createAll(List.of(
+                new BulkEmployeeRequest("dev", "Grace", "Hopper", "Developer", null, "lead"),
+                new BulkEmployeeRequest("lead", "Alan", "Kay", "Lead", 7L, null),
+                new BulkEmployeeRequest("ghost", "Ghost", "Writer", "Writer", 8L, null),
+                new BulkEmployeeRequest("blank", "", "Nobody", "Intern", null, null)
+        ));
+
+        assertThat(results).containsExactly(
+                BulkEmployeeResult.created("dev", 101L),
+                BulkEmployeeResult.created("lead", 100L),
+                BulkEmployeeResult.failed("ghost", "Supervisor not found"),
+                BulkEmployeeResult.failed("blank", "First name is required")
+        );
+    }
+
+    @Test
+    void testCreateAllRejectsCyclesAndRowsBelowThem() {
+        var results = employeeService.createAll(List.of(
+                new BulkEmployeeRequest("a", "Alice", "A", "Engineer", null, "b"),
+                new BulkEmployeeRequest("b", "Bob", "B", "Engineer", null, "a"),
+                new BulkEmployeeRequest("c", "Carol", "C", "Engineer", null, "b"),
+                new BulkEmployeeRequest("c", "Carol", "C", "Engineer", null, null)
+        ));
+
+        assertThat(results).extracting(BulkEmployeeResult::error).containsExactly(
+                "Cannot assign supervisor that creates a cycle",
+                "Cannot assign supervisor that creates a cycle",
+                "Cannot assign supervisor that creates a cycle",
+                "Duplicate key c"
+        );
+        verify(employeeRepository).saveAll(List.of());
+    }
+
     @Test
     void testGetAllEmployees() {
         employeeService.getAll();
 
-        verify(employeeRepository).findAll();
+        verify(employeeRepository).findAllViews();
+    }
+
+    @Test
+    void testGetPageReturnsCursorOfLastRowWhenMoreRowsExist() {
+        var rows = new ArrayList<EmployeeView>();
+        for (long id = 11; id <= 13; id++) {
+            rows.add(new EmployeeView(id, "First", "Last", "Position", null, null));
+        }
+        when(employeeRepository.findViewsAfter(10L, Limit.of(3))).thenReturn(rows);
+
+        var page = employeeService.getPage(10L, 2, false);
+
+        assertThat(page.content()).extracting(EmployeeView::id).containsExactly(11L, 12L);
+        assertThat(page.nextCursor()).isEqualTo(12L);
+        assertThat(page.totalCount()).isNull();
+        verify(employeeRepository, never()).count();
+    }
+
+    @Test
+    void testGetPageOnLastPageHasNoCursor() {
+        var employee = new EmployeeView(1L, "First", "Last", "Position", null, null);
+        when(employeeRepository.findViewsAfter(0L, Limit.of(3))).thenReturn(List.of(employee));
+        when(employeeRepository.count()).thenReturn(1L);
+
+        var page = employeeService.getPage(null, 2, true);
+
+        assertThat(page.content()).hasSize(1);
+        assertThat(page.nextCursor()).isNull();
+        assertThat(page.totalCount()).isEqualTo(1L);
     }
 
     @Test
@@ -94,7 +211,7 @@ class EmployeeServiceTest {
         var emp = new Employee();
 
         when(employeeRepository.findById(supervisorId)).thenReturn(Optional.of(emp));
-        when(employeeRepository.findBySupervisorId(supervisorId)).thenReturn(List.of(new Employee()));
+        when(employeeRepository.findHierarchyEdges()).thenReturn(List.of(new HierarchyEdge(2L, supervisorId)));
 
         assertThatThrownBy(() -> employeeService.delete(supervisorId))
                 .isInstanceOf(SupervisorHasSubordinatesException.class)
@@ -109,11 +226,41 @@ class EmployeeServiceTest {
         var emp = new Employee();
 
         when(employeeRepository.findById(employeeId)).thenReturn(Optional.of(emp));
-        when(employeeRepository.findBySupervisorId(employeeId)).thenReturn(new ArrayList<>());
+        when(employeeRepository.findHierarchyEdges()).thenReturn(List.of(new HierarchyEdge(employeeId, null)));
 
         employeeService.delete(employeeId);
 
         verify(employeeRepository).deleteById(employeeId);
+        verify(tombstoneRepository).save(any(EmployeeTombstone.class));
+    }
+
+    @Test
+    void testGetChangesMergesUpsertsAndDeletionsInSequenceOrder() {
+        when(employeeRepository.findChangesBetween(eq(0L), anyLong(), any(Limit.class)))
+                .thenReturn(List.of(upsert(1L, 10L), upsert(4L, 11L)));
+        when(tombstoneRepository.findChangesBetween(eq(0L), anyLong(), any(Limit.class)))
+                .thenReturn(List.of(new EmployeeChange(2L, 12L), new EmployeeChange(3L, 13L)));
+
+        var firstPage = employeeService.getChanges(0L, 3);
+
+        assertThat(firstPage.changes()).extracting(EmployeeChange::sequence).containsExactly(1L, 2L, 3L);
+        assertThat(firstPage.changes()).extracting(EmployeeChange::type)
+                .containsExactly(EmployeeChange.Type.UPSERT, EmployeeChange.Type.DELETE, EmployeeChange.Type.DELETE);
+        assertThat(firstPage.hasMore()).isTrue();
+        assertThat(firstPage.cursor()).isEqualTo(3L);
+    }
+
+    @Test
+    void testGetChangesOnLastPageReturnsTheVisibleSequenceAsCursor() {
+        var service = service(new EmployeeChangeSequence(42L));
+        when(employeeRepository.findChangesBetween(eq(40L), eq(42L), any(Limit.class)))
+                .thenReturn(List.of(upsert(41L, 10L)));
+
+        var page = service.getChanges(40L, 10);
+
+        assertThat(page.changes()).extracting(EmployeeChange::id).containsExactly(10L);
+        assertThat(page.hasMore()).isFalse();
+        assertThat(page.cursor()).isEqualTo(42L);
     }
 
     @Test
@@ -127,11 +274,9 @@ class EmployeeServiceTest {
         when(employeeRepository.findById(1L)).thenReturn(Optional.of(existingEmployee));
         when(employeeRepository.save(existingEmployee)).thenReturn(existingEmployee);
 
-        var updates = Map.of(
-                "firstName", "Tim",
-                "lastName", "Cook",
-                "position", "CEO"
-        );
+        var updates = patch("""
+                {"firstName": "Tim", "lastName": "Cook", "position": "CEO"}
+                """);
 
         var updatedEmployee = employeeService.update(1L, updates).orElseThrow();
 
@@ -143,12 +288,39 @@ class EmployeeServiceTest {
         verify(employeeRepository).save(updatedEmployee);
     }
 
+    @Test
+    void testUpdateEmployeeRejectsStaleVersion() {
+        var existingEmployee = new Employee();
+        existingEmployee.setId(1L);
+        existingEmployee.setVersion(3L);
+
+        when(employeeRepository.findById(1L)).thenReturn(Optional.of(existingEmployee));
+
+        assertThatThrownBy(() -> employeeService.update(1L, patch("{\"firstName\": \"Tim\"}"), 2L))
+                .isInstanceOf(PreconditionFailedException.class);
+        verify(employeeRepository, never()).save(any(Employee.class));
+    }
+
+    @Test
+    void testWritesChangeTableVersion() {
+        var employee = new Employee();
+        employee.setId(1L);
+        employee.setFirstName("Nikolai");
+        employee.setLastName("Efimov");
+        employee.setPosition("Engineer");
+        when(employeeRepository.save(employee)).thenReturn(employee);
+        var before = employeeService.getTableVersion();
+
+        employeeService.create(employee);
+
+        assertThat(employeeService.getTableVersion()).isNotEqualTo(before);
+    }
+
     @Test
     void testUpdateEmployeeNotFound() {
         when(employeeRepository.findById(1L)).thenReturn(Optional.empty());
 
-        var employeeFieldsMap = Map.of("firstName", "Jane");
-        var updatedEmployeeOpt = employeeService.update(1L, employeeFieldsMap);
+        var updatedEmployeeOpt = employeeService.update(1L, patch("{\"firstName\": \"Jane\"}"));
 
         assertThat(updatedEmployeeOpt).isEmpty();
 
@@ -174,14 +346,11 @@ class EmployeeServiceTest {
         when(employeeRepository.findById(1L)).thenReturn(Optional.of(existingEmployee));
         when(employeeRepository.save(existingEmployee)).thenReturn(existingEmployee);
 
-        var fieldsMap = Map.of(
-                "firstName", "Robert",
-                "lastName", "Martin",
-                "position", "Super Guru",
-                "supervisorId", ""
-        );
+        var updates = patch("""
+                {"firstName": "Robert", "lastName": "Martin", "position": "Super Guru", "supervisorId": ""}
+                """);
 
-        var updatedEmployee = employeeService.update(1L, fieldsMap).orElseThrow();
+        var updatedEmployee = employeeService.update(1L, updates).orElseThrow();
 
         assertThat(updatedEmployee.getFirstName()).isEqualTo("Robert");
         assertThat(updatedEmployee.getLastName()).isEqualTo("Martin");
@@ -207,6 +376,7 @@ class EmployeeServiceTest {
         employee2.setPosition("Manager");
         employee2.setSupervisor(employee1);
 
+        employee2.setPath("/1/");
         employee1.setSupervisor(employee2);
 
         when(employeeRepository.save(employee1)).thenReturn(employee1);
@@ -235,12 +405,30 @@ class EmployeeServiceTest {
         when(employeeRepository.save(employee1)).thenReturn(employee1);
 
         employee2.setSupervisor(employee1);
+        employee2.setPath("/1/");
 
-        assertThatThrownBy(() -> employeeService.update(1L, Map.of("supervisorId", "2")))
+        assertThatThrownBy(() -> employeeService.update(1L, patch("{\"supervisorId\": \"2\"}")))
                 .isInstanceOf(InfiniteRecursionException.class)
                 .hasMessage("Cannot assign supervisor that creates a cycle");
     }
 
+    @Test
+    void testAddSubordinateThrowsExceptionWhenSubordinateIsAboveSupervisor() {
+        var manager = new Employee();
+        manager.setId(1L);
+        var lead = new Employee();
+        lead.setId(2L);
+        lead.setSupervisor(manager);
+        lead.setPath("/1/");
+
+        when(employeeRepository.findById(2L)).thenReturn(Optional.of(lead));
+        when(employeeRepository.findAllById(Set.of(1L))).thenReturn(List.of(manager));
+
+        assertThatThrownBy(() -> employeeService.addSubordinates(2L, List.of(1L)))
+                .isInstanceOf(InfiniteRecursionException.class);
+        verify(employeeRepository, never()).updateSupervisor(any(), any(), any(), anyLong());
+    }
+
     @Test
     void testAddSubordinateThrowsExceptionWhenSupervisorNotFound() {
         var supervisor = new Employee();
@@ -263,7 +451,7 @@ class EmployeeServiceTest {
         subordinate.setId(2L);
 
         when(employeeRepository.findById(supervisor.getId())).thenReturn(Optional.of(supervisor));
-        when(employeeRepository.findById(subordinate.getId())).thenReturn(Optional.empty());
+        when(employeeRepository.findAllById(Set.of(subordinate.getId()))).thenReturn(List.of());
 
         assertThrows(
                 ResourceNotFoundException.class,
@@ -279,13 +467,101 @@ class EmployeeServiceTest {
         subordinate.setId(2L);
 
         when(employeeRepository.findById(supervisor.getId())).thenReturn(Optional.of(supervisor));
-        when(employeeRepository.findById(subordinate.getId())).thenReturn(Optional.of(subordinate));
-        when(employeeRepository.save(any(Employee.class))).thenReturn(subordinate);
+        when(employeeRepository.findAllById(Set.of(subordinate.getId()))).thenReturn(List.of(subordinate));
 
-        var actual = employeeService.addSubordinates(supervisor.getId(), List.of(subordinate.getId()));
+        var actual = employeeService.addSubordinates(supervisor.getId(), List.of(subordinate.getId(), subordinate.getId()));
 
         assertThat(actual).isEqualTo(supervisor);
+        verify(employeeRepository).updateSupervisor(eq(supervisor), eq("/1/"), eq(Set.of(subordinate.getId())), anyLong());
+        verify(employeeRepository).movePaths("/2/", "/1/2/");
+        verify(employeeRepository, never()).save(any(Employee.class));
+
+    }
+
+    @Test
+    void testAddSubordinatesReRootsPathsOfMovedSubtrees() {
+        var supervisor = new Employee();
+        supervisor.setId(1L);
+        var subordinate = new Employee();
+        subordinate.setId(2L);
+        subordinate.setPath("/5/");
+
+        when(employeeRepository.findById(1L)).thenReturn(Optional.of(supervisor));
+        when(employeeRepository.findAllById(Set.of(2L))).thenReturn(List.of(subordinate));
+
+        employeeService.addSubordinates(1L, List.of(2L));
 
+        verify(employeeRepository).updateSupervisor(eq(supervisor), eq("/1/"), eq(Set.of(2L)), anyLong());
+        verify(employeeRepository).movePaths("/5/2/", "/1/2/");
     }
 
+    @Test
+    void testUpdateSupervisorReRootsPathsOfSubordinates() {
+        var supervisor = new Employee();
+        supervisor.setId(1L);
+        var employee = new Employee();
+        employee.setId(2L);
+        employee.setPath("/5/");
+
+        when(employeeRepository.findById(1L)).thenReturn(Optional.of(supervisor));
+        when(employeeRepository.findById(2L)).thenReturn(Optional.of(employee));
+
+        employeeService.update(2L, patch("{\"supervisorId\": 1}"));
+
+        assertThat(employee.getPath()).isEqualTo("/1/");
+        verify(employeeRepository).movePaths("/5/2/", "/1/2/");
+    }
+
+    @Test
+    void testUpdateAllLoadsEveryEmployeeAndSupervisorWithOneQuery() throws IOException {
+        var supervisor = new Employee();
+        supervisor.setId(1L);
+        var first = new Employee();
+        first.setId(2L);
+        first.setPosition("Developer");
+        var second = new Employee();
+        second.setId(3L);
+        second.setPosition("Developer");
+
+        when(employeeRepository.findById(1L)).thenReturn(Optional.of(supervisor));
+        when(employeeRepository.findById(2L)).thenReturn(Optional.of(first));
+        when(employeeRepository.findById(3L)).thenReturn(Optional.of(second));
+
+        var patches = new ObjectMapper().readValue("""
+                [{"id": 2, "position": "Lead", "supervisorId": 1}, {"id": 3, "position": "Architect"}]
+                """, new TypeReference<List<EmployeePatch>>() {
+        });
+        var updated = employeeService.updateAll(patches);
+
+        assertThat(updated).extracting(EmployeeView::position).containsExactly("Lead", "Architect");
+        assertThat(updated.get(0).supervisorId()).isEqualTo(1L);
+        verify(employeeRepository).findAllById(Set.of(1L, 2L, 3L));
+        verify(writeBehind).applyQueued(Set.of(2L, 3L));
+    }
+
+    @Test
+    void testUpdateAllRejectsPatchWithoutId() {
+        assertThatThrownBy(() -> employeeService.updateAll(List.of(patch("{\"position\": \"Lead\"}"))))
+                .isInstanceOf(InvalidQueryException.class);
+        verify(employeeRepository, never()).save(any(Employee.class));
+    }
+
+    private EmployeeService service(EmployeeChangeSequence changeSequence) {
+        var store = new JpaEmployeeStore(employeeRepository, tombstoneRepository, null, changeSequence);
+        return new EmployeeService(store, new HierarchyIndex(store), new SearchIndex(store),
+                Validation.buildDefaultValidatorFactory().getValidator(), new EmployeeTableVersion(),
+                new EmployeeMetrics(new SimpleMeterRegistry()), writeBehind, changeFeed, changeSequence);
+    }
+
+    private static EmployeeChange upsert(long sequence, Long id) {
+        return new EmployeeChange(sequence, id, "Ada", "Lovelace", "Developer", null, null);
+    }
+
+    private static EmployeePatch patch(String json) {
+        try {
+            return new ObjectMapper().readValue(json, EmployeePatch.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
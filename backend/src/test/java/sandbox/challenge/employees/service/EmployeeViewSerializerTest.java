@@ -0,0 +1,47 @@
+package sandbox.challenge.employees.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import sandbox.challenge.employees.domain.Employee;
+import sandbox.challenge.employees.domain.EmployeeView;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EmployeeViewSerializerTest {
+
+    private final ObjectMapper annotated = Jackson2ObjectMapperBuilder.json().build();
+    private final ObjectMapper streaming = Jackson2ObjectMapperBuilder.json().build()
+            .registerModule(new SimpleModule()
+                    .addSerializer(EmployeeView.class, new EmployeeViewSerializer())
+                    .addSerializer(Employee.class, new EmployeeSerializer()));
+
+    @Test
+    void testWritesTheSameJsonAsTheAnnotatedRecord() throws Exception {
+        var withSupervisor = new EmployeeView(2L, "Grace", "Hopper", "Admiral", 1L, LocalDateTime.of(2024, 5, 1, 9, 30, 15, 999));
+        var withoutSupervisor = new EmployeeView(1L, "Ada", "Lovelace", "Engineer", null, null);
+        var earlyDate = new EmployeeView(3L, "Ada", "Lovelace", "Engineer", null, LocalDateTime.of(842, 1, 2, 3, 4, 5));
+
+        assertThat(streaming.writeValueAsString(withSupervisor)).isEqualTo(annotated.writeValueAsString(withSupervisor));
+        assertThat(streaming.writeValueAsString(withoutSupervisor)).isEqualTo(annotated.writeValueAsString(withoutSupervisor));
+        assertThat(streaming.writeValueAsString(earlyDate)).isEqualTo(annotated.writeValueAsString(earlyDate));
+    }
+
+    @Test
+    void testWritesAnEmployeeFlatWithItsSupervisorId() throws Exception {
+        var supervisor = new Employee();
+        supervisor.setId(1L);
+        var employee = new Employee();
+        employee.setId(2L);
+        employee.setFirstName("Grace");
+        employee.setLastName("Hopper");
+        employee.setPosition("Admiral");
+        employee.setSupervisor(supervisor);
+
+        assertThat(streaming.writeValueAsString(employee))
+                .isEqualTo(annotated.writeValueAsString(EmployeeView.from(employee)));
+    }
+}
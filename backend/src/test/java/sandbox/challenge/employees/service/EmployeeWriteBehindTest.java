@@ -0,0 +1,193 @@
+package sandbox.challenge.employees.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import sandbox.challenge.employees.config.EmployeesProperties;
+import sandbox.challenge.employees.domain.Employee;
+import sandbox.challenge.employees.domain.EmployeePatch;
+import sandbox.challenge.employees.exception.UpdatesNotAcceptedException;
+import sandbox.challenge.employees.exception.UpdatesPendingException;
+import sandbox.challenge.employees.repository.EmployeeStore;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static sandbox.challenge.employees.domain.EmployeePatch.FIRST_NAME;
+import static sandbox.challenge.employees.domain.EmployeePatch.POSITION;
+
+class EmployeeWriteBehindTest {
+
+    @Mock
+    private EmployeeStore employeeStore;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private EmployeeWriteBehind writeBehind;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        // the background writer never fires on its own here; flushes are triggered by the test
+        var settings = new EmployeesProperties.WriteBehind(true, 2, 50, Duration.ofHours(1), Duration.ofMillis(50), 2,
+                Duration.ofMillis(200));
+        writeBehind = new EmployeeWriteBehind(employeeStore, transactionManager, new SearchIndex(employeeStore),
+                new EmployeeTableVersion(), new EmployeeChangeFeed(100, 100), settings);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        writeBehind.close();
+    }
+
+    @Test
+    void testUpdatesToTheSameEmployeeAreCoalescedIntoOneWrite() {
+        var employee = employee(1L);
+        when(employeeStore.findAllById(Set.of(1L))).thenReturn(List.of(employee));
+
+        writeBehind.enqueue(1L, position("Developer"));
+        writeBehind.enqueue(1L, new EmployeePatch(null, "Grace", null, null, null, FIRST_NAME));
+        writeBehind.enqueue(1L, position("Lead"));
+
+        assertThat(writeBehind.pendingPatch(1L))
+                .isEqualTo(new EmployeePatch(null, "Grace", null, "Lead", null, FIRST_NAME | POSITION));
+
+        writeBehind.awaitFlushed(1L);
+
+        verify(employeeStore, times(1)).findAllById(any());
+        assertThat(employee.getFirstName()).isEqualTo("Grace");
+        assertThat(employee.getLastName()).isEqualTo("Hopper");
+        assertThat(employee.getPosition()).isEqualTo("Lead");
+        assertThat(writeBehind.pendingPatch(1L)).isNull();
+    }
+
+    @Test
+    void testAwaitFlushedWaitsForTheWriterInsteadOfWritingOnTheCallersThread() {
+        var writingThread = new AtomicReference<String>();
+        when(employeeStore.findAllById(Set.of(1L))).thenAnswer(invocation -> {
+            writingThread.set(Thread.currentThread().getName());
+            return List.of(employee(1L));
+        });
+        writeBehind.enqueue(1L, position("Lead"));
+
+        writeBehind.awaitFlushed();
+
+        assertThat(writingThread.get()).isEqualTo("employee-write-behind");
+        assertThat(writeBehind.pendingPatch(1L)).isNull();
+    }
+
+    @Test
+    void testUpdateThatKeepsFailingIsDroppedWithoutHoldingUpTheOthers() {
+        var other = employee(2L);
+        when(employeeStore.findAllById(Set.of(1L, 2L))).thenThrow(new IllegalStateException("batch failed"));
+        when(employeeStore.findAllById(Set.of(1L))).thenThrow(new IllegalStateException("row is broken"));
+        when(employeeStore.findAllById(Set.of(2L))).thenReturn(List.of(other));
+        writeBehind.enqueue(1L, position("Lead"));
+        writeBehind.enqueue(2L, position("Lead"));
+
+        writeBehind.awaitFlushed(2L);
+        assertThat(other.getPosition()).isEqualTo("Lead");
+        assertThat(writeBehind.pendingPatch(1L)).isEqualTo(position("Lead"));
+
+        writeBehind.awaitFlushed();
+        assertThat(writeBehind.pendingPatch(1L)).isNull();
+        verify(employeeStore, times(2)).findAllById(Set.of(1L));
+    }
+
+    @Test
+    void testReadGivesUpWhenTheWriterTakesLongerThanTheReadTimeout() {
+        var writing = new CountDownLatch(1);
+        var employee = employee(1L);
+        when(employeeStore.findAllById(Set.of(1L))).thenAnswer(invocation -> {
+            writing.await();
+            return List.of(employee);
+        });
+        writeBehind.enqueue(1L, position("Lead"));
+
+        try {
+            assertThatThrownBy(() -> writeBehind.awaitFlushed(1L)).isInstanceOf(UpdatesPendingException.class);
+        } finally {
+            writing.countDown();
+        }
+        writeBehind.awaitFlushed(1L);
+        assertThat(employee.getPosition()).isEqualTo("Lead");
+    }
+
+    @Test
+    void testApplyQueuedFoldsTheQueuedUpdateIntoTheCallersWrite() {
+        var employee = employee(1L);
+        when(employeeStore.findById(1L)).thenReturn(Optional.of(employee));
+        writeBehind.enqueue(1L, position("Lead"));
+
+        assertThat(writeBehind.applyQueued(List.of(1L, 2L))).isTrue();
+
+        assertThat(employee.getPosition()).isEqualTo("Lead");
+        verify(employeeStore).save(employee);
+        verify(employeeStore, never()).findAllById(any());
+        assertThat(writeBehind.pendingPatch(1L)).isNull();
+        assertThat(writeBehind.applyQueued(List.of(1L))).isFalse();
+    }
+
+    @Test
+    void testAwaitFlushedDoesNothingWhenTheEmployeeIsNotQueued() {
+        writeBehind.enqueue(1L, position("Developer"));
+
+        writeBehind.awaitFlushed(2L);
+
+        verify(employeeStore, never()).findAllById(any());
+    }
+
+    @Test
+    void testFullQueueRefusesNewEmployeesButStillCoalesces() {
+        writeBehind.enqueue(1L, position("Developer"));
+        writeBehind.enqueue(2L, position("Developer"));
+
+        assertThatThrownBy(() -> writeBehind.enqueue(3L, position("Developer")))
+                .isInstanceOf(UpdatesNotAcceptedException.class);
+        writeBehind.enqueue(2L, position("Lead"));
+
+        assertThat(writeBehind.pendingPatch(2L)).isEqualTo(position("Lead"));
+    }
+
+    @Test
+    void testCloseWritesEverythingQueuedAndStopsAccepting() throws InterruptedException {
+        var employee = employee(1L);
+        when(employeeStore.findAllById(Set.of(1L))).thenReturn(List.of(employee));
+        writeBehind.enqueue(1L, position("Lead"));
+
+        writeBehind.close();
+
+        assertThat(employee.getPosition()).isEqualTo("Lead");
+        assertThat(writeBehind.isEnabled()).isFalse();
+        assertThatThrownBy(() -> writeBehind.enqueue(1L, position("Developer")))
+                .isInstanceOf(UpdatesNotAcceptedException.class);
+    }
+
+    private static EmployeePatch position(String position) {
+        return new EmployeePatch(null, null, null, position, null, POSITION);
+    }
+
+    private static Employee employee(Long id) {
+        var employee = new Employee();
+        employee.setId(id);
+        employee.setFirstName("Ada");
+        employee.setLastName("Hopper");
+        employee.setPosition("Intern");
+        return employee;
+    }
+}
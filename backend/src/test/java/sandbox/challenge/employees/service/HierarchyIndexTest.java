@@ -0,0 +1,104 @@
+package sandbox.challenge.employees.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import sandbox.challenge.employees.domain.HierarchyEdge;
+import sandbox.challenge.employees.repository.EmployeeStore;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HierarchyIndexTest {
+
+    @Mock
+    private EmployeeStore employeeStore;
+
+    private HierarchyIndex hierarchyIndex;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        // 1 -> 2 -> 3, 1 -> 4
+        when(employeeStore.findHierarchyEdges()).thenReturn(List.of(
+                new HierarchyEdge(3L, 2L),
+                new HierarchyEdge(1L, null),
+                new HierarchyEdge(2L, 1L),
+                new HierarchyEdge(4L, 1L)
+        ));
+        hierarchyIndex = new HierarchyIndex(employeeStore);
+    }
+
+    @Test
+    void testLoadsEdgesFromStoreOnce() {
+        assertThat(hierarchyIndex.hasSubordinates(1L)).isTrue();
+        assertThat(hierarchyIndex.hasSubordinates(2L)).isTrue();
+        assertThat(hierarchyIndex.hasSubordinates(3L)).isFalse();
+        assertThat(hierarchyIndex.hasSubordinates(999_999L)).isFalse();
+
+        verify(employeeStore, times(1)).findHierarchyEdges();
+    }
+
+    @Test
+    void testPutMovesSubordinateBetweenSupervisors() {
+        hierarchyIndex.put(3L, 4L);
+
+        assertThat(hierarchyIndex.hasSubordinates(2L)).isFalse();
+        assertThat(hierarchyIndex.hasSubordinates(4L)).isTrue();
+    }
+
+    @Test
+    void testPutGrowsBeyondInitialCapacity() {
+        hierarchyIndex.put(5_000L, 3L);
+        hierarchyIndex.put(6_000L, 5_000L);
+
+        assertThat(hierarchyIndex.hasSubordinates(3L)).isTrue();
+        assertThat(hierarchyIndex.hasSubordinates(5_000L)).isTrue();
+    }
+
+    @Test
+    void testRemoveReleasesSupervisor() {
+        hierarchyIndex.remove(4L);
+        hierarchyIndex.remove(2L);
+
+        assertThat(hierarchyIndex.hasSubordinates(1L)).isFalse();
+    }
+
+    @Test
+    void testMoveIsSeenOnlyOnceItsTransactionCommits() {
+        hierarchyIndex.hasSubordinates(1L);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            hierarchyIndex.put(3L, 4L);
+            var open = TransactionSynchronizationManager.getSynchronizations();
+            TransactionSynchronizationManager.clearSynchronization();
+
+            assertThat(hierarchyIndex.hasSubordinates(4L)).isFalse();
+
+            open.forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+        }
+
+        assertThat(hierarchyIndex.hasSubordinates(2L)).isFalse();
+        assertThat(hierarchyIndex.hasSubordinates(4L)).isTrue();
+    }
+
+    @Test
+    void testInvalidateReloadsFromStore() {
+        hierarchyIndex.hasSubordinates(1L);
+        hierarchyIndex.invalidate();
+        hierarchyIndex.hasSubordinates(1L);
+
+        verify(employeeStore, times(2)).findHierarchyEdges();
+    }
+}
@@ -0,0 +1,140 @@
+package sandbox.challenge.employees.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import sandbox.challenge.employees.domain.EmployeeView;
+import sandbox.challenge.employees.repository.EmployeeStore;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SearchIndexTest {
+
+    @Mock
+    private EmployeeStore employeeStore;
+
+    private SearchIndex searchIndex;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(employeeStore.findAllViews()).thenReturn(List.of(
+                view(1L, "Ada", "Lovelace", "Chief Engineer", null),
+                view(2L, "Grace", "Hopper", "Rear Admiral", 1L),
+                view(3L, "Alan", "Adams", "Engineer", 1L),
+                view(4L, "Linus", "Torvalds", "Kernel Engineer", 1L)
+        ));
+        searchIndex = new SearchIndex(employeeStore);
+    }
+
+    @Test
+    void testMatchesPrefixesAndRanksNamesAboveExactThenPositions() {
+        var result = searchIndex.search("ad", 0, 10);
+
+        // "Adams" (name prefix) and "Ada" (name prefix) outrank "Admiral" (position prefix)
+        assertThat(result.content()).extracting(EmployeeView::id).containsExactly(3L, 1L, 2L);
+        assertThat(result.totalCount()).isEqualTo(3);
+
+        assertThat(searchIndex.search("ada", 0, 10).content()).extracting(EmployeeView::id).containsExactly(1L, 3L);
+    }
+
+    @Test
+    void testEveryTokenMustMatch() {
+        assertThat(searchIndex.search("engineer l", 0, 10).content())
+                .extracting(EmployeeView::id).containsExactly(1L, 4L);
+        assertThat(searchIndex.search("engineer grace", 0, 10).content()).isEmpty();
+        assertThat(searchIndex.search("  ", 0, 10).totalCount()).isZero();
+    }
+
+    @Test
+    void testPagesThroughRankedResults() {
+        var first = searchIndex.search("engineer", 0, 2);
+        assertThat(first.content()).extracting(EmployeeView::id).containsExactly(3L, 1L);
+        assertThat(first.nextCursor()).isEqualTo(2L);
+        assertThat(first.totalCount()).isEqualTo(3);
+
+        var second = searchIndex.search("engineer", 2, 2);
+        assertThat(second.content()).extracting(EmployeeView::id).containsExactly(4L);
+        assertThat(second.nextCursor()).isNull();
+    }
+
+    @Test
+    void testOffsetPastTheEndReturnsAnEmptyPage() {
+        var page = searchIndex.search("engineer", Integer.MAX_VALUE, 50);
+
+        assertThat(page.content()).isEmpty();
+        assertThat(page.nextCursor()).isNull();
+        assertThat(page.totalCount()).isEqualTo(3);
+        assertThat(searchIndex.search("engineer", 1, Integer.MAX_VALUE).content()).hasSize(2);
+    }
+
+    @Test
+    void testWritesUpdateTheIndexWithoutReloading() {
+        searchIndex.put(view(5L, "Barbara", "Liskov", "Professor", null));
+        searchIndex.put(view(2L, "Grace", "Hopper", "Commodore", 1L));
+        searchIndex.remove(4L);
+        searchIndex.moveUnder(List.of(3L), 5L);
+
+        assertThat(searchIndex.search("lis", 0, 10).content()).extracting(EmployeeView::id).containsExactly(5L);
+        assertThat(searchIndex.search("admiral", 0, 10).content()).isEmpty();
+        assertThat(searchIndex.search("commodore", 0, 10).content()).extracting(EmployeeView::id).containsExactly(2L);
+        assertThat(searchIndex.search("torvalds", 0, 10).content()).isEmpty();
+        assertThat(searchIndex.search("adams", 0, 10).content().get(0).supervisorId()).isEqualTo(5L);
+        verify(employeeStore, times(1)).findAllViews();
+    }
+
+    @Test
+    void testWriteIsSearchableOnlyOnceItsTransactionCommits() {
+        searchIndex.search("ada", 0, 10);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            searchIndex.put(view(5L, "Barbara", "Liskov", "Professor", null));
+            var open = TransactionSynchronizationManager.getSynchronizations();
+            TransactionSynchronizationManager.clearSynchronization();
+
+            assertThat(searchIndex.search("lis", 0, 10).content()).isEmpty();
+
+            open.forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+        }
+
+        assertThat(searchIndex.search("lis", 0, 10).content()).extracting(EmployeeView::id).containsExactly(5L);
+    }
+
+    @Test
+    void testReloadWhileAWriterIsOpenKeepsTheWriteOnceItCommits() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            searchIndex.put(view(5L, "Barbara", "Liskov", "Professor", null));
+            var open = TransactionSynchronizationManager.getSynchronizations();
+            TransactionSynchronizationManager.clearSynchronization();
+
+            // a rollback elsewhere drops the index; the reload reads rows that do not include the open write yet
+            searchIndex.invalidate();
+            searchIndex.search("ada", 0, 10);
+            open.forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+        }
+
+        assertThat(searchIndex.search("lis", 0, 10).content()).extracting(EmployeeView::id).containsExactly(5L);
+    }
+
+    private static EmployeeView view(Long id, String firstName, String lastName, String position, Long supervisorId) {
+        return new EmployeeView(id, firstName, lastName, position, supervisorId, LocalDateTime.of(2024, 1, 1, 9, 0));
+    }
+}
@@ -0,0 +1,70 @@
+package sandbox.challenge.employees.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.openjdk.jmh.annotations.*;
+import sandbox.challenge.employees.domain.Employee;
+import sandbox.challenge.employees.domain.EmployeePatch;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request-body parsing through {@code EmployeeDeserializer}, with and without a supervisor to resolve,
+ * and of a PATCH body through the streaming {@code EmployeePatchDeserializer}. The {@code baseline} mapper
+ * reads {@code Employee} through a tree first; run with {@code -prof gc} to compare the bytes allocated per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmployeeDeserializerBenchmark {
+
+    @Param({"10"})
+    int depth;
+
+    @Param({"4"})
+    int fanOut;
+
+    @Param({"100000"})
+    int maxSize;
+
+    @Param({"tuned", "baseline"})
+    String mapper;
+
+    private ObjectReader reader;
+    private ObjectReader patchReader;
+    private byte[] withoutSupervisor;
+    private byte[] withSupervisor;
+
+    @Setup
+    public void setUp() {
+        var org = SyntheticOrg.generate(depth, fanOut, maxSize);
+        ObjectMapper objectMapper = Wiring.objectMapper(mapper, Wiring.employeeService(org.store()));
+        reader = objectMapper.readerFor(Employee.class);
+        patchReader = objectMapper.readerFor(EmployeePatch.class);
+        withoutSupervisor = """
+                {"firstName":"Ada","lastName":"Lovelace","position":"Engineer"}"""
+                .getBytes(StandardCharsets.UTF_8);
+        withSupervisor = ("{\"firstName\":\"Ada\",\"lastName\":\"Lovelace\",\"position\":\"Engineer\",\"supervisorId\":"
+                + org.deepest().getId() + "}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Employee deserialize() throws IOException {
+        return reader.readValue(withoutSupervisor);
+    }
+
+    @Benchmark
+    public Employee deserializeWithSupervisor() throws IOException {
+        return reader.readValue(withSupervisor);
+    }
+
+    @Benchmark
+    public EmployeePatch deserializePatch() throws IOException {
+        return patchReader.readValue(withSupervisor);
+    }
+}
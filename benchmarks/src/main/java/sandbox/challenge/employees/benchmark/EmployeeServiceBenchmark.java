@@ -0,0 +1,88 @@
+package sandbox.challenge.employees.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import sandbox.challenge.employees.domain.Employee;
+import sandbox.challenge.employees.domain.EmployeePatch;
+import sandbox.challenge.employees.exception.InfiniteRecursionException;
+import sandbox.challenge.employees.service.EmployeeService;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static sandbox.challenge.employees.domain.EmployeePatch.FIRST_NAME;
+import static sandbox.challenge.employees.domain.EmployeePatch.LAST_NAME;
+import static sandbox.challenge.employees.domain.EmployeePatch.POSITION;
+import static sandbox.challenge.employees.domain.EmployeePatch.SUPERVISOR_ID;
+
+/**
+ * {@code EmployeeService.update} with a typed patch, against an in-memory org so only service code is timed.
+ * {@code validateSupervisor} is private and is measured through the supervisor reassignments: moving the
+ * deepest employee between two valid supervisors, and a rejected move of the root under the deepest employee,
+ * both on a chain {@code depth} levels deep.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmployeeServiceBenchmark {
+
+    @Param({"10", "100", "1000"})
+    int depth;
+
+    @Param({"1"})
+    int fanOut;
+
+    @Param({"100000"})
+    int maxSize;
+
+    private EmployeeService employeeService;
+    private long employeeId;
+    private EmployeePatch fieldUpdate;
+    private EmployeePatch toParent;
+    private EmployeePatch toGrandparent;
+    private EmployeePatch underDeepest;
+    private long rootId;
+    private boolean flip;
+
+    @Setup
+    public void setUp() {
+        var org = SyntheticOrg.generate(depth, fanOut, maxSize);
+        employeeService = Wiring.employeeService(org.store());
+
+        Employee deepest = org.deepest();
+        Employee parent = deepest.getSupervisor();
+        Employee grandparent = parent.getSupervisor() != null ? parent.getSupervisor() : parent;
+        employeeId = deepest.getId();
+        rootId = org.root().getId();
+        fieldUpdate = new EmployeePatch(null, "Grace", "Hopper", "Admiral", null, FIRST_NAME | LAST_NAME | POSITION);
+        toParent = moveUnder(parent.getId());
+        toGrandparent = moveUnder(grandparent.getId());
+        underDeepest = moveUnder(employeeId);
+    }
+
+    private static EmployeePatch moveUnder(Long supervisorId) {
+        return new EmployeePatch(null, null, null, null, supervisorId, SUPERVISOR_ID);
+    }
+
+    @Benchmark
+    public Optional<Employee> updateFields() {
+        return employeeService.update(employeeId, fieldUpdate);
+    }
+
+    @Benchmark
+    public Optional<Employee> reassignSupervisor() {
+        flip = !flip;
+        return employeeService.update(employeeId, flip ? toGrandparent : toParent);
+    }
+
+    @Benchmark
+    public Object rejectCycle() {
+        try {
+            return employeeService.update(rootId, underDeepest);
+        } catch (InfiniteRecursionException e) {
+            return e;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package sandbox.challenge.employees.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import sandbox.challenge.employees.domain.CursorPage;
+import sandbox.challenge.employees.domain.EmployeeView;
+import sandbox.challenge.employees.service.SearchIndex;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Type-ahead queries against the in-memory search index. Generated names are {@code First<id> Last<id>},
+ * so a longer prefix narrows the match set by roughly ten per character.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchIndexBenchmark {
+
+    @Param({"100000"})
+    int maxSize;
+
+    @Param({"last12", "last1234", "first123 last123"})
+    String query;
+
+    private SearchIndex searchIndex;
+
+    @Setup
+    public void setUp() {
+        var org = SyntheticOrg.generate(Integer.MAX_VALUE, 8, maxSize);
+        searchIndex = new SearchIndex(org.store());
+        searchIndex.warmUp();
+    }
+
+    @Benchmark
+    public CursorPage<EmployeeView> search() {
+        return searchIndex.search(query, 0, 20);
+    }
+}
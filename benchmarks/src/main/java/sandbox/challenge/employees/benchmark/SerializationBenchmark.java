@@ -0,0 +1,52 @@
+package sandbox.challenge.employees.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+import sandbox.challenge.employees.domain.EmployeeView;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing the list payload the list endpoints return, with the application's mapper ({@code tuned}) and the
+ * untuned one ({@code baseline}). Output goes to a null stream so the numbers cover serialization rather than
+ * growing a buffer. Run with {@code -prof gc} to compare {@code gc.alloc.rate.norm}, the bytes allocated per call.
+ * {@code format} picks the encoding the controller negotiates: JSON, Smile or CBOR.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"1000", "100000"})
+    int rows;
+
+    @Param({"8"})
+    int fanOut;
+
+    @Param({"tuned", "baseline"})
+    String mapper;
+
+    @Param({"json", "smile", "cbor"})
+    String format;
+
+    private ObjectWriter writer;
+    private List<EmployeeView> views;
+
+    @Setup
+    public void setUp() {
+        var org = SyntheticOrg.generate(Integer.MAX_VALUE, fanOut, rows);
+        writer = Wiring.objectMapper(mapper, format, Wiring.employeeService(org.store())).writerFor(List.class);
+        views = org.views();
+    }
+
+    @Benchmark
+    public void serializeList() throws IOException {
+        writer.writeValue(OutputStream.nullOutputStream(), views);
+    }
+}
@@ -0,0 +1,89 @@
+package sandbox.challenge.employees.benchmark;
+
+import sandbox.challenge.employees.domain.Employee;
+import sandbox.challenge.employees.repository.ColumnarEmployeeStore;
+import sandbox.challenge.employees.service.EmployeeChangeSequence;
+
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+
+/**
+ * Heap retained by a breadth-first org of {@code employees} rows, once in {@link ColumnarEmployeeStore} and once
+ * as detached {@link Employee} entities. The entities are a lower bound for the JPA store: a persistence context
+ * or the second-level cache keeps a snapshot of every row on top of the entity itself.
+ */
+public final class StoreFootprint {
+
+    private static final LocalDateTime CREATED = LocalDateTime.of(2024, 1, 1, 9, 0);
+
+    private StoreFootprint() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        var employees = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        var fanOut = args.length > 1 ? Integer.parseInt(args[1]) : 7;
+        var columnar = columnar(employees, fanOut);
+        var detached = detached(employees, fanOut);
+        System.out.printf("%,d employees, fan-out %d%n", employees, fanOut);
+        System.out.printf("columnar store:    %,d bytes (%d per employee)%n", columnar, columnar / employees);
+        System.out.printf("detached entities: %,d bytes (%d per employee)%n", detached, detached / employees);
+    }
+
+    /**
+     * Each measurement runs in its own frame, so nothing from the other one is still reachable.
+     */
+    private static long columnar(int employees, int fanOut) throws IOException {
+        var walPath = Files.createTempFile("employees", ".wal");
+        try {
+            var before = usedHeap();
+            var store = new ColumnarEmployeeStore(new EmployeeChangeSequence(0L), walPath, false);
+            for (var id = 1L; id <= employees; id++) {
+                var supervisorId = SyntheticOrg.supervisorIdOf(id, fanOut);
+                store.save(employee(id, supervisorId == null ? null : store.getReferenceById(supervisorId)));
+            }
+            var used = usedHeap() - before;
+            Reference.reachabilityFence(store);
+            store.close();
+            return used;
+        } finally {
+            Files.deleteIfExists(walPath);
+        }
+    }
+
+    private static long detached(int employees, int fanOut) {
+        var before = usedHeap();
+        var entities = new Employee[employees];
+        for (var id = 1L; id <= employees; id++) {
+            var supervisorId = SyntheticOrg.supervisorIdOf(id, fanOut);
+            var employee = employee(id, supervisorId == null ? null : entities[(int) (supervisorId - 1)]);
+            employee.setId(id);
+            employee.setPath(SyntheticOrg.pathOf(id, fanOut));
+            employee.setVersion(0L);
+            employee.setChangeSequence(id);
+            entities[(int) (id - 1)] = employee;
+        }
+        var used = usedHeap() - before;
+        Reference.reachabilityFence(entities);
+        return used;
+    }
+
+    private static Employee employee(long id, Employee supervisor) {
+        var employee = new Employee();
+        employee.setFirstName("First" + id);
+        employee.setLastName("Last" + id);
+        employee.setPosition(supervisor == null ? "CEO" : "Engineer");
+        employee.setSupervisor(supervisor);
+        employee.setCreationDate(CREATED.plusSeconds(id));
+        return employee;
+    }
+
+    private static long usedHeap() {
+        var runtime = Runtime.getRuntime();
+        for (var i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
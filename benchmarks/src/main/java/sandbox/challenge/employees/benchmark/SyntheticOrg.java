@@ -0,0 +1,160 @@
+package sandbox.challenge.employees.benchmark;
+
+import sandbox.challenge.employees.domain.Employee;
+import sandbox.challenge.employees.domain.EmployeeView;
+import sandbox.challenge.employees.domain.HierarchyEdge;
+import sandbox.challenge.employees.repository.EmployeeRepository;
+import sandbox.challenge.employees.repository.EmployeeStore;
+import sandbox.challenge.employees.repository.JpaEmployeeStore;
+import sandbox.challenge.employees.service.EmployeeChangeSequence;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Generated org tree with ids {@code 1..size} in breadth-first order: one root, then {@code fanOut} reports
+ * per employee for {@code depth} levels below it, stopping early once {@code maxSize} employees exist.
+ * {@code fanOut = 1} produces a single chain, which is the worst case for anything that walks supervisors.
+ * <p>
+ * Because ids follow breadth-first order, an uncapped tree can also be described without materializing it:
+ * {@link #supervisorIdOf} and {@link #pathOf} give the same answers as the generated entities, which is how
+ * the load test seeds millions of rows.
+ */
+public final class SyntheticOrg {
+
+    private static final LocalDateTime CREATED = LocalDateTime.of(2024, 1, 1, 9, 0);
+
+    private final List<Employee> employees;
+    private final Map<Long, Employee> byId;
+    private final int depth;
+
+    private SyntheticOrg(List<Employee> employees, int depth) {
+        this.employees = employees;
+        this.byId = new HashMap<>(employees.size() * 2);
+        employees.forEach(employee -> byId.put(employee.getId(), employee));
+        this.depth = depth;
+    }
+
+    public static SyntheticOrg generate(int depth, int fanOut, int maxSize) {
+        var employees = new ArrayList<Employee>();
+        var root = employee(1L, null);
+        employees.add(root);
+
+        var level = List.of(root);
+        var reachedDepth = 0;
+        while (reachedDepth < depth && employees.size() < maxSize) {
+            var next = new ArrayList<Employee>(level.size() * fanOut);
+            for (var supervisor : level) {
+                for (var i = 0; i < fanOut && employees.size() < maxSize; i++) {
+                    var employee = employee(employees.size() + 1L, supervisor);
+                    employees.add(employee);
+                    next.add(employee);
+                }
+            }
+            level = next;
+            reachedDepth++;
+        }
+        return new SyntheticOrg(employees, reachedDepth);
+    }
+
+    /**
+     * Supervisor of {@code id} in a breadth-first tree where everyone has {@code fanOut} reports, or null for the root.
+     */
+    public static Long supervisorIdOf(long id, int fanOut) {
+        return id == 1 ? null : (id - 2) / fanOut + 1;
+    }
+
+    /**
+     * First id that has no reports in a breadth-first tree of {@code size} employees.
+     */
+    public static long firstLeafId(long size, int fanOut) {
+        return Math.min(size, (size - 2) / fanOut + 2);
+    }
+
+    public static String pathOf(long id, int fanOut) {
+        var path = new StringBuilder(Employee.ROOT_PATH);
+        for (var supervisorId = supervisorIdOf(id, fanOut); supervisorId != null;
+             supervisorId = supervisorIdOf(supervisorId, fanOut)) {
+            path.insert(0, "/" + supervisorId);
+        }
+        return path.toString();
+    }
+
+    private static Employee employee(long id, Employee supervisor) {
+        var employee = new Employee();
+        employee.setId(id);
+        employee.setFirstName("First" + id);
+        employee.setLastName("Last" + id);
+        employee.setPosition(supervisor == null ? "CEO" : "Engineer");
+        employee.setSupervisor(supervisor);
+        employee.setPath(Employee.pathBelow(supervisor));
+        employee.setCreationDate(CREATED.plusSeconds(id));
+        employee.setVersion(0L);
+        return employee;
+    }
+
+    public int size() {
+        return employees.size();
+    }
+
+    public int depth() {
+        return depth;
+    }
+
+    public Employee root() {
+        return employees.get(0);
+    }
+
+    /**
+     * The last generated employee, which sits on the deepest level.
+     */
+    public Employee deepest() {
+        return employees.get(employees.size() - 1);
+    }
+
+    public Employee get(long id) {
+        return byId.get(id);
+    }
+
+    public List<EmployeeView> views() {
+        return employees.stream().map(EmployeeView::from).toList();
+    }
+
+    /**
+     * The JPA store over {@link #repository()}.
+     */
+    public EmployeeStore store() {
+        return new JpaEmployeeStore(repository(), null, null, new EmployeeChangeSequence(0L));
+    }
+
+    /**
+     * In-memory stand-in for the JPA repository that answers the calls the service hot paths make,
+     * so the benchmarks measure service and mapping code rather than H2.
+     */
+    public EmployeeRepository repository() {
+        return (EmployeeRepository) Proxy.newProxyInstance(EmployeeRepository.class.getClassLoader(),
+                new Class<?>[]{EmployeeRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findById" -> Optional.ofNullable(byId.get((Long) args[0]));
+                    case "existsById" -> byId.containsKey((Long) args[0]);
+                    case "getReferenceById" -> byId.get((Long) args[0]);
+                    case "save" -> args[0];
+                    case "findAllViews" -> views();
+                    case "findAllById" -> ((Collection<?>) args[0]).stream().map(byId::get).toList();
+                    case "findHierarchyEdges" -> employees.stream()
+                            .map(employee -> new HierarchyEdge(employee.getId(),
+                                    employee.getSupervisor() == null ? null : employee.getSupervisor().getId()))
+                            .toList();
+                    case "movePaths", "updateSupervisor" -> 0;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "SyntheticOrg repository";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,52 @@
+package sandbox.challenge.employees.benchmark;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonNode;
+import sandbox.challenge.employees.domain.Employee;
+import sandbox.challenge.employees.exception.ResourceNotFoundException;
+import sandbox.challenge.employees.service.EmployeeService;
+
+import java.io.IOException;
+
+/**
+ * The previous {@code EmployeeDeserializer}, which reads the whole body into a {@link JsonNode} tree before
+ * copying the fields out. Only used as the baseline the streaming deserializer is measured against; the
+ * supervisor lookup timer is left out, as it costs the same on both sides.
+ */
+final class TreeEmployeeDeserializer extends JsonDeserializer<Employee> {
+
+    private final EmployeeService employeeService;
+
+    TreeEmployeeDeserializer(EmployeeService employeeService) {
+        this.employeeService = employeeService;
+    }
+
+    @Override
+    public Employee deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonNode node = p.getCodec().readTree(p);
+
+        var employee = new Employee();
+        employee.setId(node.has("id") ? node.get("id").asLong() : null);
+        employee.setFirstName(node.has("firstName") ? node.get("firstName").asText() : null);
+        employee.setLastName(node.has("lastName") ? node.get("lastName").asText() : null);
+        employee.setPosition(node.has("position") ? node.get("position").asText() : null);
+
+        if (node.has("supervisorId")) {
+            var supervisorIdStr = node.get("supervisorId").asText();
+            if (!supervisorIdStr.isEmpty()) {
+                try {
+                    var supervisorId = Long.parseLong(supervisorIdStr);
+                    if (!employeeService.exists(supervisorId)) {
+                        throw new ResourceNotFoundException("Supervisor not found");
+                    }
+                    employee.setSupervisor(employeeService.getReference(supervisorId));
+                } catch (NumberFormatException e) {
+                    throw new ResourceNotFoundException("Invalid supervisor ID format");
+                }
+            }
+        }
+        return employee;
+    }
+}
@@ -0,0 +1,145 @@
+package sandbox.challenge.employees.benchmark;
+
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.KeyDeserializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.cfg.HandlerInstantiator;
+import com.fasterxml.jackson.databind.cfg.MapperConfig;
+import com.fasterxml.jackson.databind.introspect.Annotated;
+import com.fasterxml.jackson.databind.jsontype.TypeIdResolver;
+import com.fasterxml.jackson.databind.jsontype.TypeResolverBuilder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import sandbox.challenge.employees.config.EmployeesProperties;
+import sandbox.challenge.employees.config.JacksonConfig;
+import sandbox.challenge.employees.domain.Employee;
+import sandbox.challenge.employees.repository.EmployeeStore;
+import sandbox.challenge.employees.service.EmployeeChangeFeed;
+import sandbox.challenge.employees.service.EmployeeChangeSequence;
+import sandbox.challenge.employees.service.EmployeeDeserializer;
+import sandbox.challenge.employees.service.EmployeeMetrics;
+import sandbox.challenge.employees.service.EmployeeService;
+import sandbox.challenge.employees.service.EmployeeTableVersion;
+import sandbox.challenge.employees.service.EmployeeWriteBehind;
+import sandbox.challenge.employees.service.HierarchyIndex;
+import sandbox.challenge.employees.service.SearchIndex;
+
+import java.time.Duration;
+
+/**
+ * Builds the service and the JSON mapper the way the application context does, minus Spring.
+ */
+final class Wiring {
+
+    private static final EmployeeMetrics METRICS = new EmployeeMetrics(new SimpleMeterRegistry());
+    private static final EmployeesProperties.WriteBehind WRITE_BEHIND_DISABLED =
+            new EmployeesProperties.WriteBehind(false, 0, 0, Duration.ZERO, Duration.ZERO, 0, Duration.ZERO);
+    private static final int CHANGES_RETAINED = 10_000;
+    private static final int SUBSCRIBER_BACKLOG = 1_000;
+
+    private Wiring() {
+    }
+
+    static EmployeeService employeeService(EmployeeStore store) {
+        var searchIndex = new SearchIndex(store);
+        var tableVersion = new EmployeeTableVersion();
+        var changeFeed = new EmployeeChangeFeed(CHANGES_RETAINED, SUBSCRIBER_BACKLOG);
+        return new EmployeeService(store, new HierarchyIndex(store), searchIndex,
+                Validation.buildDefaultValidatorFactory().getValidator(), tableVersion, METRICS,
+                new EmployeeWriteBehind(store, null, searchIndex, tableVersion, changeFeed, WRITE_BEHIND_DISABLED),
+                changeFeed, new EmployeeChangeSequence(0L));
+    }
+
+    /**
+     * Same configuration as {@link JacksonConfig}. {@code Employee} names its deserializer with
+     * {@code @JsonDeserialize}, so the instance is also handed out through a {@link HandlerInstantiator},
+     * which is what Spring's autowiring instantiator does in the application.
+     */
+    static ObjectMapper objectMapper(EmployeeService employeeService) {
+        return objectMapper(Jackson2ObjectMapperBuilder.json(), employeeService);
+    }
+
+    private static ObjectMapper objectMapper(Jackson2ObjectMapperBuilder builder, EmployeeService employeeService) {
+        var deserializer = new EmployeeDeserializer();
+        deserializer.setEmployeeService(employeeService);
+        deserializer.setMetrics(METRICS);
+        var mapper = JacksonConfig.customize(builder.build(), deserializer);
+        mapper.setHandlerInstantiator(instantiating(deserializer));
+        return mapper;
+    }
+
+    /**
+     * The mapper as it was before it was tuned, kept as the baseline: reflective bean (de)serialization and
+     * {@link TreeEmployeeDeserializer} for {@code Employee}.
+     */
+    static ObjectMapper baselineObjectMapper(EmployeeService employeeService) {
+        return baselineObjectMapper(Jackson2ObjectMapperBuilder.json(), employeeService);
+    }
+
+    private static ObjectMapper baselineObjectMapper(Jackson2ObjectMapperBuilder builder, EmployeeService employeeService) {
+        var deserializer = new TreeEmployeeDeserializer(employeeService);
+        var mapper = builder.build();
+        mapper.setHandlerInstantiator(instantiating(deserializer));
+        return mapper;
+    }
+
+    static ObjectMapper objectMapper(String variant, EmployeeService employeeService) {
+        return objectMapper(variant, "json", employeeService);
+    }
+
+    /**
+     * The {@code tuned} or {@code baseline} mapper for {@code json}, {@code smile} or {@code cbor}, the formats the
+     * controller negotiates.
+     */
+    static ObjectMapper objectMapper(String variant, String format, EmployeeService employeeService) {
+        var builder = switch (format) {
+            case "json" -> Jackson2ObjectMapperBuilder.json();
+            case "smile" -> Jackson2ObjectMapperBuilder.smile();
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor();
+            default -> throw new IllegalArgumentException("Unknown format " + format);
+        };
+        return switch (variant) {
+            case "tuned" -> objectMapper(builder, employeeService);
+            case "baseline" -> baselineObjectMapper(builder, employeeService);
+            default -> throw new IllegalArgumentException("Unknown mapper " + variant);
+        };
+    }
+
+    private static HandlerInstantiator instantiating(JsonDeserializer<Employee> deserializer) {
+        return new HandlerInstantiator() {
+            @Override
+            public JsonDeserializer<?> deserializerInstance(DeserializationConfig config, Annotated annotated,
+                                                            Class<?> deserClass) {
+                return deserClass == EmployeeDeserializer.class ? deserializer : null;
+            }
+
+            @Override
+            public KeyDeserializer keyDeserializerInstance(DeserializationConfig config, Annotated annotated,
+                                                           Class<?> keyDeserClass) {
+                return null;
+            }
+
+            @Override
+            public JsonSerializer<?> serializerInstance(SerializationConfig config, Annotated annotated,
+                                                        Class<?> serClass) {
+                return null;
+            }
+
+            @Override
+            public TypeResolverBuilder<?> typeResolverBuilderInstance(MapperConfig<?> config, Annotated annotated,
+                                                                      Class<?> builderClass) {
+                return null;
+            }
+
+            @Override
+            public TypeIdResolver typeIdResolverInstance(MapperConfig<?> config, Annotated annotated,
+                                                         Class<?> resolverClass) {
+                return null;
+            }
+        };
+    }
+}
@@ -0,0 +1,43 @@
+package sandbox.challenge.employees.benchmark.load;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Server-side filter installed by the load test. It charges the bytes the request thread allocated while
+ * handling a request to the operation named in the {@value #OPERATION_HEADER} header.
+ * Virtual threads do not report per-thread allocation, so nothing is recorded for them.
+ */
+final class AllocationFilter extends OncePerRequestFilter {
+
+    static final String OPERATION_HEADER = "X-Load-Operation";
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final LoadStats stats;
+
+    AllocationFilter(LoadStats stats) {
+        this.stats = stats;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        var operation = Operation.fromHeader(request.getHeader(OPERATION_HEADER));
+        var before = threads.getCurrentThreadAllocatedBytes();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            var after = threads.getCurrentThreadAllocatedBytes();
+            if (operation != null && before >= 0 && after >= 0) {
+                stats.recordAllocation(operation, after - before);
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package sandbox.challenge.employees.benchmark.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-operation latency histograms (client side, nanoseconds), failure counts and server-side allocation.
+ */
+final class LoadStats {
+
+    private static final long MAX_LATENCY = TimeUnit.MINUTES.toNanos(1);
+
+    private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> failures = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> allocatedBytes = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> allocationSamples = new EnumMap<>(Operation.class);
+
+    LoadStats() {
+        for (var operation : Operation.values()) {
+            latencies.put(operation, new ConcurrentHistogram(MAX_LATENCY, 3));
+            failures.put(operation, new LongAdder());
+            allocatedBytes.put(operation, new LongAdder());
+            allocationSamples.put(operation, new LongAdder());
+        }
+    }
+
+    void recordLatency(Operation operation, long nanos, boolean success) {
+        latencies.get(operation).recordValue(Math.min(nanos, MAX_LATENCY));
+        if (!success) {
+            failures.get(operation).increment();
+        }
+    }
+
+    void recordAllocation(Operation operation, long bytes) {
+        allocatedBytes.get(operation).add(bytes);
+        allocationSamples.get(operation).increment();
+    }
+
+    void reset() {
+        for (var operation : Operation.values()) {
+            latencies.get(operation).reset();
+            failures.get(operation).reset();
+            allocatedBytes.get(operation).reset();
+            allocationSamples.get(operation).reset();
+        }
+    }
+
+    void report(PrintStream out, double seconds) {
+        out.printf("%-17s %9s %9s %9s %9s %9s %9s %8s %12s%n",
+                "operation", "requests", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "non-2xx", "alloc KB/req");
+        var total = 0L;
+        for (var operation : Operation.values()) {
+            var histogram = latencies.get(operation);
+            var count = histogram.getTotalCount();
+            if (count == 0) {
+                continue;
+            }
+            total += count;
+            var samples = allocationSamples.get(operation).sum();
+            out.printf("%-17s %9d %9.1f %9.2f %9.2f %9.2f %9.2f %8d %12s%n",
+                    operation.label(), count, count / seconds,
+                    millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(99)),
+                    millis(histogram.getValueAtPercentile(99.9)), millis(histogram.getMaxValue()),
+                    failures.get(operation).sum(),
+                    samples == 0 ? "n/a" : String.format("%.1f", allocatedBytes.get(operation).sum() / 1024.0 / samples));
+        }
+        out.printf("%-17s %9d %9.1f%n", "total", total, total / seconds);
+    }
+
+    /**
+     * Writes one HdrHistogram percentile file per operation (values in milliseconds), for plotting or diffing runs.
+     */
+    void writeHistograms(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        for (var operation : Operation.values()) {
+            try (var out = new PrintStream(Files.newOutputStream(directory.resolve(operation.label() + ".hgrm")))) {
+                latencies.get(operation).outputPercentileDistribution(out, 1_000_000.0);
+            }
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,160 @@
+package sandbox.challenge.employees.benchmark.load;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.support.GenericApplicationContext;
+import sandbox.challenge.employees.EmployeesApplication;
+import sandbox.challenge.employees.benchmark.SyntheticOrg;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop HTTP load test of {@code /api/employees} against the application started in this JVM on H2.
+ * <p>
+ * The database is seeded with a breadth-first org of {@code employees} rows and the given {@code fanOut}
+ * (the default of 7 gives a realistic depth of 7-8 for a million rows). {@code concurrency} clients then issue
+ * the weighted {@code mix} for {@code warmup} seconds, which are discarded, and {@code duration} seconds,
+ * which are reported. Settings are {@code key=value} arguments; arguments starting with {@code --} go to
+ * Spring, e.g. {@code --spring.profiles.active=virtual-threads}.
+ */
+public final class LoadTest {
+
+    private static final Map<String, String> DEFAULTS = Map.of(
+            "employees", "1000000",
+            "fanOut", "7",
+            "concurrency", "32",
+            "warmup", "15",
+            "duration", "60",
+            "mix", "list:40,get:40,patch:10,add-subordinates:7,delete:3",
+            "out", "target/load-test");
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        var settings = new HashMap<>(DEFAULTS);
+        var springArgs = new ArrayList<String>();
+        for (var arg : args) {
+            if (arg.startsWith("--")) {
+                springArgs.add(arg);
+            } else {
+                var separator = arg.indexOf('=');
+                settings.put(arg.substring(0, separator), arg.substring(separator + 1));
+            }
+        }
+        var size = Long.parseLong(settings.get("employees"));
+        var fanOut = Integer.parseInt(settings.get("fanOut"));
+        var concurrency = Integer.parseInt(settings.get("concurrency"));
+        var mix = parseMix(settings.get("mix"));
+
+        var stats = new LoadStats();
+        var application = new SpringApplication(EmployeesApplication.class);
+        application.setDefaultProperties(Map.of(
+                "server.port", "0",
+                "logging.level.root", "WARN"));
+        application.addInitializers(context -> ((GenericApplicationContext) context).registerBean("allocationFilter",
+                FilterRegistrationBean.class, () -> new FilterRegistrationBean<>(new AllocationFilter(stats))));
+
+        // seeded once the context is up but before it is ready, which is when the search index warms up
+        application.addListeners((ApplicationListener<ApplicationStartedEvent>) event -> {
+            var started = System.nanoTime();
+            try {
+                new OrgSeeder(event.getApplicationContext().getBean(DataSource.class)).seed(size, fanOut);
+            } catch (SQLException e) {
+                throw new IllegalStateException("Seeding failed", e);
+            }
+            System.out.printf("Seeded %d employees (fan-out %d, depth %d) in %.1fs%n", size, fanOut,
+                    SyntheticOrg.pathOf(size, fanOut).split("/").length - 1, (System.nanoTime() - started) / 1e9);
+        });
+
+        try (var context = (ServletWebServerApplicationContext) application.run(springArgs.toArray(String[]::new))) {
+
+            var firstLeaf = SyntheticOrg.firstLeafId(size, fanOut);
+            var deletePool = Math.max(1, Math.min(size / 10, size - firstLeaf));
+            var target = new Operation.Target(
+                    URI.create("http://localhost:" + context.getWebServer().getPort() + "/api/employees"),
+                    size, firstLeaf, size - deletePool + 1, new AtomicLong(size));
+
+            var client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+                    .executor(Executors.newFixedThreadPool(concurrency)).build();
+
+            run(client, target, mix, stats, concurrency, Integer.parseInt(settings.get("warmup")));
+            stats.reset();
+            var duration = Integer.parseInt(settings.get("duration"));
+            run(client, target, mix, stats, concurrency, duration);
+
+            System.out.printf("%nconcurrency %d, %ds measured after %ss warm-up, mix %s%n",
+                    concurrency, duration, settings.get("warmup"), settings.get("mix"));
+            stats.report(System.out, duration);
+            stats.writeHistograms(Path.of(settings.get("out")));
+        }
+        System.exit(0);
+    }
+
+    private static void run(HttpClient client, Operation.Target target, Map<Operation, Integer> mix,
+                            LoadStats stats, int concurrency, int seconds) throws InterruptedException {
+        var operations = mix.keySet().toArray(Operation[]::new);
+        var cumulativeWeights = new int[operations.length];
+        var totalWeight = 0;
+        for (var i = 0; i < operations.length; i++) {
+            totalWeight += mix.get(operations[i]);
+            cumulativeWeights[i] = totalWeight;
+        }
+        var weightSum = totalWeight;
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+
+        var workers = Executors.newFixedThreadPool(concurrency);
+        for (var i = 0; i < concurrency; i++) {
+            workers.execute(() -> {
+                var random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    var pick = random.nextInt(weightSum);
+                    var index = 0;
+                    while (cumulativeWeights[index] <= pick) {
+                        index++;
+                    }
+                    var operation = operations[index];
+                    var request = operation.request(target, random)
+                            .header(AllocationFilter.OPERATION_HEADER, operation.label()).build();
+                    var start = System.nanoTime();
+                    var success = false;
+                    try {
+                        var status = client.send(request, BodyHandlers.discarding()).statusCode();
+                        success = status >= 200 && status < 300;
+                    } catch (Exception e) {
+                        // counted as a failure below
+                    }
+                    stats.recordLatency(operation, System.nanoTime() - start, success);
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(seconds + 60L, TimeUnit.SECONDS);
+    }
+
+    private static Map<Operation, Integer> parseMix(String mix) {
+        var weights = new LinkedHashMap<Operation, Integer>();
+        for (var entry : List.of(mix.split(","))) {
+            var parts = entry.split(":");
+            weights.put(Operation.fromLabel(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,113 @@
+package sandbox.challenge.employees.benchmark.load;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The request types in the load mix. Ids are picked so every operation stays valid on the seeded tree:
+ * reassignments only move leaves under managers, and deletes take leaves from a pool nothing else touches.
+ */
+enum Operation {
+
+    LIST("list") {
+        @Override
+        HttpRequest.Builder request(Target target, ThreadLocalRandom random) {
+            return HttpRequest.newBuilder(target.uri("?size=50&after=" + random.nextLong(target.size())));
+        }
+    },
+    GET("get") {
+        @Override
+        HttpRequest.Builder request(Target target, ThreadLocalRandom random) {
+            return HttpRequest.newBuilder(target.uri("/" + target.stableId(random)));
+        }
+    },
+    SEARCH("search") {
+        @Override
+        HttpRequest.Builder request(Target target, ThreadLocalRandom random) {
+            // a last-name prefix such as "last42", which matches every id starting with those digits
+            return HttpRequest.newBuilder(target.uri("/search?size=20&q=last" + random.nextLong(1, 1_000)));
+        }
+    },
+    CHANGES("changes") {
+        @Override
+        HttpRequest.Builder request(Target target, ThreadLocalRandom random) {
+            // seeded rows carry their id as change sequence, so any cursor below size has a full page after it
+            return HttpRequest.newBuilder(target.uri("/changes?size=50&since=" + random.nextLong(target.size())));
+        }
+    },
+    PATCH("patch") {
+        @Override
+        HttpRequest.Builder request(Target target, ThreadLocalRandom random) {
+            return HttpRequest.newBuilder(target.uri("/" + target.stableId(random)))
+                    .header("Content-Type", "application/json")
+                    .method("PATCH", BodyPublishers.ofString("{\"position\":\"Engineer " + random.nextInt(100) + "\"}"));
+        }
+    },
+    ADD_SUBORDINATES("add-subordinates") {
+        @Override
+        HttpRequest.Builder request(Target target, ThreadLocalRandom random) {
+            return HttpRequest.newBuilder(target.uri("/" + target.managerId(random) + "/add-subordinates"))
+                    .header("Content-Type", "application/json")
+                    .POST(BodyPublishers.ofString("[" + target.movableLeafId(random) + "]"));
+        }
+    },
+    DELETE("delete") {
+        @Override
+        HttpRequest.Builder request(Target target, ThreadLocalRandom random) {
+            return HttpRequest.newBuilder(target.uri("/" + target.nextDeletableId())).DELETE();
+        }
+    };
+
+    private final String label;
+
+    Operation(String label) {
+        this.label = label;
+    }
+
+    String label() {
+        return label;
+    }
+
+    abstract HttpRequest.Builder request(Target target, ThreadLocalRandom random);
+
+    static Operation fromLabel(String label) {
+        return Arrays.stream(values()).filter(operation -> operation.label.equals(label)).findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown operation: " + label));
+    }
+
+    static Operation fromHeader(String header) {
+        return header == null ? null : fromLabel(header);
+    }
+
+    /**
+     * Id ranges of the seeded breadth-first tree: managers are {@code [1, firstLeaf)}, leaves that may be
+     * reassigned are {@code [firstLeaf, firstDeletable)}, and {@code [firstDeletable, size]} is consumed by
+     * deletes from the top down.
+     */
+    record Target(URI base, long size, long firstLeaf, long firstDeletable, AtomicLong nextDelete) {
+
+        URI uri(String suffix) {
+            return URI.create(base + suffix);
+        }
+
+        long stableId(ThreadLocalRandom random) {
+            return random.nextLong(1, firstDeletable);
+        }
+
+        long managerId(ThreadLocalRandom random) {
+            return random.nextLong(1, firstLeaf);
+        }
+
+        long movableLeafId(ThreadLocalRandom random) {
+            return random.nextLong(firstLeaf, firstDeletable);
+        }
+
+        long nextDeletableId() {
+            return nextDelete.getAndDecrement();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package sandbox.challenge.employees.benchmark.load;
+
+import sandbox.challenge.employees.benchmark.SyntheticOrg;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Writes a breadth-first org of {@code size} employees straight into the {@code employee} table with batched
+ * JDBC inserts, so a million-row tree is ready in seconds instead of going through the REST API. Each row gets its
+ * id as change sequence, so the rows show up in {@code GET /api/employees/changes} like ones written by the app.
+ * <p>
+ * The in-memory indexes do not see these inserts, so seeding has to happen before they are first loaded.
+ */
+final class OrgSeeder {
+
+    private static final int BATCH_SIZE = 10_000;
+    private static final String INSERT = "insert into employee "
+            + "(id, first_name, last_name, position, supervisor_id, path, creation_date, change_sequence, version) "
+            + "values (?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    private final DataSource dataSource;
+
+    OrgSeeder(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    void seed(long size, int fanOut) throws SQLException {
+        var created = Timestamp.valueOf(LocalDateTime.now().minusYears(1));
+        try (var connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (var insert = connection.prepareStatement(INSERT)) {
+                for (var id = 1L; id <= size; id++) {
+                    var supervisorId = SyntheticOrg.supervisorIdOf(id, fanOut);
+                    insert.setLong(1, id);
+                    insert.setString(2, "First" + id);
+                    insert.setString(3, "Last" + id);
+                    insert.setString(4, supervisorId == null ? "CEO" : "Engineer");
+                    insert.setObject(5, supervisorId);
+                    insert.setString(6, SyntheticOrg.pathOf(id, fanOut));
+                    insert.setTimestamp(7, created);
+                    insert.setLong(8, id);
+                    insert.addBatch();
+                    if (id % BATCH_SIZE == 0) {
+                        insert.executeBatch();
+                    }
+                }
+                insert.executeBatch();
+            }
+            try (var statement = connection.createStatement()) {
+                // past the pooled generator's current block, so ids handed out by the app never collide
+                statement.execute("alter sequence employee_seq restart with " + (size + 1_000));
+            }
+            connection.commit();
+        }
+    }
+}
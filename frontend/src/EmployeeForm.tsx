@@ -24,7 +24,7 @@ const EmployeeForm: React.FC<EmployeeFormProps> = ({ employee, onFormSubmit, onC
                 firstName: employee.firstName,
                 lastName: employee.lastName,
                 position: employee.position,
-                supervisorId: employee.supervisor ? employee.supervisor.id.toString() : '',
+                supervisorId: employee.supervisorId != null ? employee.supervisorId.toString() : '',
             });
         } else {
             setFormData({
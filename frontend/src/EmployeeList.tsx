@@ -1,10 +1,12 @@
-import React, { useState, useEffect } from 'react';
+import React, { useState, useEffect, useMemo, useRef } from 'react';
 import { format } from 'date-fns';
-import api from './api';
+import api, { subscribeToChanges } from './api';
 import { Employee } from './types';
 import EmployeeForm from './EmployeeForm';
 import styles from './EmployeeList.module.css';
 
+type Change = (employees: Employee[]) => Employee[];
+
 const EmployeeList: React.FC = () => {
     const [employees, setEmployees] = useState<Employee[]>([]);
     const [selectedEmployee, setSelectedEmployee] = useState<Employee | null>(null);
@@ -14,22 +16,53 @@ const EmployeeList: React.FC = () => {
     const [showSubordinateForm, setShowSubordinateForm] = useState<boolean>(false);
     const [error, setError] = useState<string | null>(null);
 
+    const employeesById = useMemo(() => new Map(employees.map(e => [e.id, e])), [employees]);
+
+    // changes that arrive while a list is loading are replayed on top of it, since the snapshot may predate them
+    const loading = useRef<{ changes: Change[] } | null>(null);
+
+    const applyChange = (change: Change) => {
+        loading.current?.changes.push(change);
+        setEmployees(change);
+    };
+
+    // the list loads right away, so it shows even if the stream cannot connect; every stream opens with a reset,
+    // which loads it again once changes after it are sure to arrive
     useEffect(() => {
+        const unsubscribe = subscribeToChanges({
+            onUpsert: employee => applyChange(current => current.some(e => e.id === employee.id)
+                ? current.map(e => (e.id === employee.id ? employee : e))
+                : [...current, employee]),
+            onDelete: id => applyChange(current => current.filter(e => e.id !== id)),
+            onReset: () => fetchEmployees(),
+        });
         fetchEmployees();
+        return unsubscribe;
     }, []);
 
     const fetchEmployees = async () => {
+        const load = { changes: [] as Change[] };
+        loading.current = load;
         try {
             const response = await api.get<Employee[]>('/employees');
+            if (loading.current !== load) {
+                return; // a newer load is under way
+            }
             if (Array.isArray(response.data)) {
-                setEmployees(response.data);
+                setEmployees(load.changes.reduce((list, change) => change(list), response.data));
             } else {
                 setEmployees([]);
                 console.error('API response is not an array:', response.data);
             }
         } catch (error) {
             console.error('Failed to fetch employees:', error);
-            setEmployees([]);
+            if (loading.current === load) {
+                setEmployees([]);
+            }
+        } finally {
+            if (loading.current === load) {
+                loading.current = null;
+            }
         }
     };
 
@@ -133,7 +166,7 @@ const EmployeeList: React.FC = () => {
     const getSupervisorButtonText = (employee: Employee) => {
         if (selectedEmployee?.id === employee.id && showSupervisorForm) {
             return "Cancel";
-        } else if (employee.supervisor) {
+        } else if (employee.supervisorId != null) {
             return "Change Supervisor";
         } else {
             return "Assign Supervisor";
@@ -148,6 +181,11 @@ const EmployeeList: React.FC = () => {
         }
     };
 
+    const supervisorName = (id: number) => {
+        const supervisor = employeesById.get(id);
+        return supervisor ? `${supervisor.firstName} ${supervisor.lastName}` : `ID ${id}`;
+    };
+
     const isValidDate = (date: any) => {
         return !isNaN(Date.parse(date));
     };
@@ -174,8 +212,8 @@ const EmployeeList: React.FC = () => {
                                     ? format(new Date(employee.creationDate), 'MMMM dd, yyyy HH:mm')
                                     : 'N/A'}
                             </p>
-                            {employee.supervisor && (
-                                <p><strong>Supervisor:</strong> {employee.supervisor.firstName} {employee.supervisor.lastName}</p>
+                            {employee.supervisorId != null && (
+                                <p><strong>Supervisor:</strong> {supervisorName(employee.supervisorId)}</p>
                             )}
                         </div>
                         <div className={styles.buttonGroup}>
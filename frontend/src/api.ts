@@ -1,7 +1,30 @@
 import axios from 'axios';
+import { Employee } from './types';
+
+const baseURL = 'http://localhost:8080/api';
 
 const api = axios.create({
-    baseURL: 'http://localhost:8080/api',
+    baseURL,
 });
 
+export interface ChangeHandlers {
+    onUpsert: (employee: Employee) => void;
+    onDelete: (id: number) => void;
+    onReset: () => void;
+}
+
+// the stream opens with a reset; EventSource resumes from the last received event id on its own after a dropped
+// connection, and the server answers with another reset if it cannot
+export const subscribeToChanges = (handlers: ChangeHandlers): (() => void) => {
+    const source = new EventSource(`${baseURL}/employees/events`);
+    source.addEventListener('upsert', event => {
+        handlers.onUpsert(JSON.parse((event as MessageEvent).data).employee);
+    });
+    source.addEventListener('delete', event => {
+        handlers.onDelete(JSON.parse((event as MessageEvent).data).id);
+    });
+    source.addEventListener('reset', () => handlers.onReset());
+    return () => source.close();
+};
+
 export default api;
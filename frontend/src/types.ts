@@ -4,5 +4,5 @@ export interface Employee {
     lastName: string;
     position: string;
     creationDate: string;
-    supervisor?: Employee;
+    supervisorId?: number | null;
 }
\ No newline at end of file